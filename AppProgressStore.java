@@ -0,0 +1,178 @@
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+/**
+ * Weight logs of desktop-app users, one CSV per user
+ * (app_progress_{email}.csv, email lower-cased), shared by ProgressPanel
+ * and DashboardServer's /api/progress.
+ *
+ * A user's file is read once and then kept in memory, with its WeightSeries,
+ * and kept up to date by addLog. At most MAX_CACHED_USERS are kept (least
+ * recently used go first). Emails without a file are not cached, so
+ * requests for unknown users cost a file lookup and no memory.
+ */
+class AppProgressStore {
+
+    private static final int MAX_CACHED_USERS = 1_000;
+
+    // lower-cased email -> logs and series; access order, so the eldest entry is the least recently used
+    private static final Map<String, UserProgress> CACHE =
+            new LinkedHashMap<String, UserProgress>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, UserProgress> eldest) {
+                    return size() > MAX_CACHED_USERS;
+                }
+            };
+
+    /** Told about every log added through addLog, after it is stored (e.g. DashboardServer's live feed). */
+    interface Listener {
+        void logAdded(String email, AppWeightLog log);
+    }
+
+    private static final List<Listener> LISTENERS = new CopyOnWriteArrayList<>();
+
+    static void addListener(Listener l) {
+        LISTENERS.add(l);
+    }
+
+    static void removeListener(Listener l) {
+        LISTENERS.remove(l);
+    }
+
+    static class UserProgress {
+        final List<AppWeightLog> logs = new ArrayList<>();
+        final WeightSeries series = new WeightSeries();
+
+        void add(AppWeightLog log) {
+            logs.add(log);
+            try {
+                series.add(LocalDate.parse(log.date), log.weightKg);
+            } catch (DateTimeParseException e) {
+                // keep the row for the table, leave it out of the statistics
+            }
+        }
+    }
+
+    /** The user's progress file; emails differing only in case share it. */
+    static String fileForEmail(String email) {
+        return legacyFileFor(key(email));
+    }
+
+    // file name as written before names were lower-cased
+    private static String legacyFileFor(String email) {
+        String safe = email.replace("@", "_at_").replace(".", "_");
+        return "app_progress_" + safe + ".csv";
+    }
+
+    /** Logs from position `from` on, for a view that already shows the first `from`. */
+    static List<AppWeightLog> logsSince(String email, int from) {
+        synchronized (CACHE) {
+            List<AppWeightLog> logs = progress(email).logs;
+            if (from >= logs.size()) return Collections.emptyList();
+            return new ArrayList<>(logs.subList(from, logs.size()));
+        }
+    }
+
+    /** The user's logs in file order (read-only, no file I/O after the first call). */
+    static List<AppWeightLog> loadLogs(String email) {
+        synchronized (CACHE) {
+            return Collections.unmodifiableList(new ArrayList<>(progress(email).logs));
+        }
+    }
+
+    /**
+     * Runs a query against the user's weight series under the store's lock,
+     * e.g. {@code withSeries(email, s -> s.movingAverage(today, 7))}.
+     */
+    static <T> T withSeries(String email, Function<WeightSeries, T> query) {
+        synchronized (CACHE) {
+            return query.apply(progress(email).series);
+        }
+    }
+
+    static void addLog(String email, AppWeightLog log) {
+        synchronized (CACHE) {
+            // the write and the cache update under one lock, so a concurrent first read
+            // cannot load the new line from the file and then get it added a second time
+            UserProgress cached = CACHE.get(key(email));
+            String file = fileForEmail(email);
+            migrateLegacyFile(email, file);
+            try (PrintWriter pw = new PrintWriter(new FileWriter(file, true))) {
+                pw.println(log.toCsv());
+            } catch (IOException e) {
+                e.printStackTrace();
+                return;
+            }
+            if (cached != null) {
+                cached.add(log);
+            } else {
+                progress(email); // reads the file, the new line included
+            }
+        }
+        for (Listener l : LISTENERS) {
+            l.logAdded(email, log);
+        }
+    }
+
+    private static String key(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+
+    // caller holds the CACHE lock
+    private static UserProgress progress(String email) {
+        String key = key(email);
+        UserProgress p = CACHE.get(key);
+        if (p != null) return p;
+
+        p = new UserProgress();
+        String file = fileForEmail(email);
+        migrateLegacyFile(email, file);
+        if (!Files.exists(Paths.get(file))) {
+            return p; // nothing logged (or no such user): not worth a cache slot
+        }
+        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                AppWeightLog log = AppWeightLog.fromCsv(line);
+                if (log != null) {
+                    p.add(log);
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return p; // try again next time rather than caching a partial read
+        }
+        CACHE.put(key, p);
+        return p;
+    }
+
+    /** Renames a file written under the email's original case to the lower-cased name. */
+    private static void migrateLegacyFile(String email, String file) {
+        String legacy = legacyFileFor(email);
+        if (legacy.equals(file)) return;
+        Path from = Paths.get(legacy);
+        Path to = Paths.get(file);
+        if (Files.exists(to) || !Files.exists(from)) return;
+        try {
+            Files.move(from, to);
+        } catch (IOException e) {
+            System.err.println("Could not rename " + legacy + " to " + file + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,30 @@
+/** One body-weight entry of a desktop-app user, stored as a line of their progress CSV. */
+class AppWeightLog {
+    String date;
+    double weightKg;
+    String notes;
+
+    AppWeightLog(String date, double weightKg, String notes) {
+        this.date = date;
+        this.weightKg = weightKg;
+        this.notes = notes;
+    }
+
+    static AppWeightLog fromCsv(String line) {
+        String[] p = line.split(",", 3);
+        if (p.length < 2) return null;
+        try {
+            String date = p[0];
+            double w = Double.parseDouble(p[1]);
+            String notes = p.length == 3 ? p[2] : "";
+            return new AppWeightLog(date, w, notes);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    String toCsv() {
+        String safeNotes = notes == null ? "" : notes.replace("\n", " ").replace(",", " ");
+        return date + "," + weightKg + "," + safeNotes;
+    }
+}
@@ -2,7 +2,7 @@ public class CardioExercise extends Exercise {
     private final double met; // intensity (e.g., 6 = light jog, 8 = run)
 
     public CardioExercise(String name, String targetMuscle, String instructions, double met) {
-        super(name, targetMuscle, instructions);
+        super(name, targetMuscle, instructions, Double.toString(met));
         this.met = met;
     }
 
@@ -0,0 +1,288 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Long-lived background appender for the session and meal CSV logs.
+ *
+ * Callers render their rows to text and enqueue them; one writer thread
+ * drains the queue, groups whatever has piled up by file and writes each
+ * group with a single flush ("group commit"). Files stay open between
+ * batches, so many sessions finishing together do not each pay for an
+ * open/close. Install it with SessionPersistence.setAppender and
+ * MealPersistence.setAppender, and call close() (or installShutdownHook())
+ * so nothing queued is lost on exit.
+ */
+public class CsvAppender implements AutoCloseable {
+
+    /** When written data is forced to disk. */
+    public enum FsyncPolicy {
+        /** Leave it to the OS. Fastest, may lose the last batches on power loss. */
+        NONE,
+        /** fsync every file touched by a batch before the batch counts as done. */
+        EVERY_BATCH,
+        /** fsync at most once per interval. */
+        INTERVAL
+    }
+
+    private static final int MAX_OPEN_FILES = 16;
+    private static final Record STOP = new Record(null, null, null, -1);
+
+    private final FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalMillis;
+    private final int maxBatch;
+    private final BlockingQueue<Record> queue = new LinkedBlockingQueue<>();
+    private final Thread writerThread;
+
+    // Least recently used files get closed once more than MAX_OPEN_FILES are open
+    private final Map<String, OpenFile> openFiles = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, OpenFile> eldest) {
+            if (size() > MAX_OPEN_FILES) {
+                closeQuietly(eldest.getValue());
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private final Object progress = new Object();
+    private long enqueued = 0;  // guarded by progress
+    private long committed = 0; // guarded by progress
+    private volatile boolean closed = false;
+
+    public CsvAppender() {
+        this(FsyncPolicy.NONE, 1000, 1024);
+    }
+
+    public CsvAppender(FsyncPolicy fsyncPolicy, long fsyncIntervalMillis, int maxBatch) {
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalMillis = fsyncIntervalMillis;
+        this.maxBatch = Math.max(1, maxBatch);
+        this.writerThread = new Thread(this::run, "csv-appender");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /** Queue one session, one line per set. */
+    public void appendSession(WorkoutSession session, String fileName) {
+        StringWriter sw = new StringWriter();
+        try {
+            new SessionCsvWriter(sw).write(session);
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // StringWriter does not throw
+        }
+        enqueue(fileName, SessionCsvWriter.HEADER, sw.toString());
+    }
+
+    /** Queue a set of meals, one line per food item. */
+    public void appendMeals(Iterable<Meal> meals, String fileName) {
+        StringWriter sw = new StringWriter();
+        try (PrintWriter out = new PrintWriter(sw)) {
+            MealPersistence.writeRows(meals, out);
+        }
+        enqueue(fileName, MealPersistence.HEADER, sw.toString());
+    }
+
+    private void enqueue(String fileName, String header, String text) {
+        if (text.isEmpty()) return;
+        synchronized (progress) {
+            if (closed) {
+                throw new IllegalStateException("CsvAppender is closed");
+            }
+            queue.add(new Record(fileName, header, text, ++enqueued));
+        }
+    }
+
+    /** Block until everything queued before this call is written (and synced, per policy). */
+    public void flush() throws InterruptedException {
+        synchronized (progress) {
+            long target = enqueued;
+            while (committed < target && writerThread.isAlive()) {
+                progress.wait(100);
+            }
+        }
+    }
+
+    /** Flush, sync and close all files. Further appends throw. */
+    @Override
+    public void close() {
+        synchronized (progress) {
+            if (closed) return;
+            closed = true;
+            queue.add(STOP);
+        }
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Close this appender when the JVM exits normally. */
+    public CsvAppender installShutdownHook() {
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "csv-appender-shutdown"));
+        return this;
+    }
+
+    // ===== writer thread =====
+
+    private void run() {
+        List<Record> batch = new ArrayList<>(maxBatch);
+        long lastSync = System.currentTimeMillis();
+        boolean dirty = false;
+        boolean stopping = false;
+        try {
+            while (!stopping) {
+                Record first = dirty && fsyncPolicy == FsyncPolicy.INTERVAL
+                        ? queue.poll(fsyncIntervalMillis, TimeUnit.MILLISECONDS)
+                        : queue.take();
+
+                batch.clear();
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, maxBatch - 1);
+                }
+                if (!batch.isEmpty() && batch.get(batch.size() - 1) == STOP) {
+                    batch.remove(batch.size() - 1);
+                    stopping = true;
+                }
+
+                if (!batch.isEmpty()) {
+                    writeBatch(batch);
+                    dirty = true;
+                }
+
+                boolean sync = fsyncPolicy == FsyncPolicy.EVERY_BATCH
+                        || (fsyncPolicy == FsyncPolicy.INTERVAL
+                            && (stopping || System.currentTimeMillis() - lastSync >= fsyncIntervalMillis));
+                if (dirty && sync) {
+                    syncAll();
+                    lastSync = System.currentTimeMillis();
+                    dirty = false;
+                }
+
+                if (!batch.isEmpty()) {
+                    markCommitted(batch.get(batch.size() - 1).seq);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            for (OpenFile f : openFiles.values()) {
+                closeQuietly(f);
+            }
+            openFiles.clear();
+            synchronized (progress) {
+                progress.notifyAll();
+            }
+        }
+    }
+
+    /** One write + flush per file, however many records it got in this batch. */
+    private void writeBatch(List<Record> batch) {
+        Map<String, List<Record>> byFile = new LinkedHashMap<>();
+        for (Record r : batch) {
+            byFile.computeIfAbsent(r.fileName, k -> new ArrayList<>()).add(r);
+        }
+        for (Map.Entry<String, List<Record>> e : byFile.entrySet()) {
+            try {
+                OpenFile f = open(e.getKey(), e.getValue().get(0).header);
+                for (Record r : e.getValue()) {
+                    f.writer.write(r.text);
+                }
+                f.writer.flush();
+                f.dirty = true;
+            } catch (IOException ex) {
+                System.out.println("CSV save failed: " + e.getKey() + ": " + ex.getMessage());
+                closeQuietly(openFiles.remove(e.getKey()));
+            }
+        }
+    }
+
+    private OpenFile open(String fileName, String header) throws IOException {
+        OpenFile f = openFiles.get(fileName);
+        if (f != null) return f;
+
+        File file = new File(fileName).getAbsoluteFile();
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists()) {
+            parent.mkdirs();
+        }
+        FileOutputStream fos = new FileOutputStream(file, true);
+        f = new OpenFile(fos, new BufferedWriter(new OutputStreamWriter(fos)));
+        if (fos.getChannel().size() == 0) {
+            f.writer.write(header);
+            f.writer.write(System.lineSeparator());
+        }
+        openFiles.put(fileName, f);
+        return f;
+    }
+
+    private void syncAll() {
+        for (OpenFile f : openFiles.values()) {
+            if (!f.dirty) continue;
+            try {
+                f.stream.getChannel().force(false);
+                f.dirty = false;
+            } catch (IOException e) {
+                System.out.println("CSV fsync failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private void markCommitted(long seq) {
+        synchronized (progress) {
+            committed = seq;
+            progress.notifyAll();
+        }
+    }
+
+    private void closeQuietly(OpenFile f) {
+        if (f == null) return;
+        try {
+            f.writer.flush();
+            if (fsyncPolicy != FsyncPolicy.NONE && f.dirty) {
+                f.stream.getChannel().force(false);
+            }
+            f.writer.close();
+        } catch (IOException ignored) {}
+    }
+
+    private static class OpenFile {
+        final FileOutputStream stream;
+        final Writer writer;
+        boolean dirty;
+
+        OpenFile(FileOutputStream stream, Writer writer) {
+            this.stream = stream;
+            this.writer = writer;
+        }
+    }
+
+    private static class Record {
+        final String fileName;
+        final String header;
+        final String text;
+        final long seq;
+
+        Record(String fileName, String header, String text, long seq) {
+            this.fileName = fileName;
+            this.header = header;
+            this.text = text;
+            this.seq = seq;
+        }
+    }
+}
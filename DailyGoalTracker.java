@@ -1,3 +1,5 @@
+import java.time.LocalDate;
+
 public class DailyGoalTracker {
 
     // ===== Static target used by the Dashboard UI =====
@@ -39,4 +41,14 @@ public class DailyGoalTracker {
 
         return "Calorie surplus.\nYou consumed more than you burned.";
     }
+
+    /** Evaluate a day's rollup. */
+    public String evaluate(DailyRollupCache.Day day) {
+        return evaluate(day.burned, day.intake);
+    }
+
+    /** Evaluate a user's day straight from the rollup cache (a lookup, no re-summing). */
+    public String evaluate(DailyRollupCache rollups, String userEmail, LocalDate date) {
+        return evaluate(rollups.get(userEmail, date));
+    }
 }
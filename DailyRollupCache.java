@@ -0,0 +1,259 @@
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Per-user, per-day totals of calories burned and eaten (plus macros), kept
+ * up to date as sessions and meals are recorded, so a dashboard refresh is a
+ * hash lookup instead of re-summing every meal and set.
+ *
+ * recordSession/recordMeal add what the session or meal holds so far and
+ * then follow it: every later addSet/addFood is applied as a delta.
+ * Recording the same object twice for the same user is ignored.
+ *
+ * At most maxDays (user, day) entries are kept; the least recently used one
+ * is dropped when a new one comes in. If a Loader is set, a missing day is
+ * rebuilt from it (for example from the persisted history) before it is
+ * returned or changed; without one a dropped day starts again from zero.
+ *
+ * A dropped day also stops following its sessions and meals, and so does
+ * every day of a user passed to forgetUser. Their later sets and foods would
+ * otherwise rebuild the day from nothing but those deltas, and get() would
+ * return that partial sum as the day's total. Record them again to follow
+ * them anew.
+ */
+public class DailyRollupCache {
+
+    /** Totals for one user and day. Instances returned by get() are snapshots. */
+    public static class Day {
+        public double burned;
+        public double intake;
+        public double protein, carbs, fat;
+        public int sessions;
+        public int meals;
+        // trackers adding to this day; only on cached days, never on snapshots. Guarded by the cache.
+        private List<Tracker> followers;
+
+        public Day() {}
+
+        Day(Day d) {
+            burned = d.burned;
+            intake = d.intake;
+            protein = d.protein;
+            carbs = d.carbs;
+            fat = d.fat;
+            sessions = d.sessions;
+            meals = d.meals;
+        }
+
+        void follow(Tracker t) {
+            if (followers == null) followers = new ArrayList<>(2);
+            followers.add(t);
+        }
+
+        void unfollowAll() {
+            if (followers == null) return;
+            for (Tracker t : followers) t.detached = true;
+            followers = null;
+        }
+    }
+
+    /** Rebuilds a day that is not (or no longer) cached. */
+    public interface Loader {
+        Day load(String userEmail, LocalDate date);
+    }
+
+    private final int maxDays;
+    private final Loader loader;
+    private final LinkedHashMap<Key, Day> days;
+    private long hits, misses, evictions; // guarded by this
+
+    public DailyRollupCache(int maxDays) {
+        this(maxDays, null);
+    }
+
+    public DailyRollupCache(int maxDays, Loader loader) {
+        if (maxDays <= 0) throw new IllegalArgumentException("maxDays must be > 0");
+        this.maxDays = maxDays;
+        this.loader = loader;
+        this.days = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Day> eldest) {
+                if (size() > DailyRollupCache.this.maxDays) {
+                    evictions++;
+                    eldest.getValue().unfollowAll();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // ===== Recording =====
+
+    /** Adds the session to its start day and follows its future sets. */
+    public void recordSession(String userEmail, WorkoutSession session) {
+        Tracker t = new Tracker(this, key(userEmail));
+        if (!session.addListener(t)) return;
+        LocalDate date = session.getStart().toLocalDate();
+        synchronized (this) {
+            Day d = dayForUpdate(t.user, date);
+            d.burned += session.totalCalories();
+            d.sessions++;
+            d.follow(t);
+        }
+    }
+
+    /** Adds the meal to its day and follows its future foods. */
+    public void recordMeal(String userEmail, Meal meal) {
+        Tracker t = new Tracker(this, key(userEmail));
+        if (!meal.addListener(t)) return;
+        Meal.Macros m = meal.totalMacros();
+        synchronized (this) {
+            Day d = dayForUpdate(t.user, meal.getDate());
+            d.intake += meal.totalCalories();
+            d.protein += m.protein;
+            d.carbs += m.carbs;
+            d.fat += m.fat;
+            d.meals++;
+            d.follow(t);
+        }
+    }
+
+    /** Burned calories that did not come from a WorkoutSession (imports, manual entry, ...). */
+    public synchronized void addBurned(String userEmail, LocalDate date, double kcal) {
+        dayForUpdate(key(userEmail), date).burned += kcal;
+    }
+
+    // ===== Lookup =====
+
+    /** Snapshot of the day's totals; zeros if nothing was recorded (and the loader has nothing). */
+    public synchronized Day get(String userEmail, LocalDate date) {
+        Key k = new Key(key(userEmail), date);
+        Day d = days.get(k);
+        if (d != null) {
+            hits++;
+        } else {
+            misses++;
+            d = load(k);
+            if (loader != null) days.put(k, d);
+        }
+        return new Day(d);
+    }
+
+    /** Drops everything cached for the user, e.g. on logout. */
+    public synchronized void forgetUser(String userEmail) {
+        String u = key(userEmail);
+        days.entrySet().removeIf(e -> {
+            if (!e.getKey().user.equals(u)) return false;
+            e.getValue().unfollowAll();
+            return true;
+        });
+    }
+
+    public synchronized int size() { return days.size(); }
+
+    public synchronized String stats() {
+        return String.format(Locale.ROOT, "days=%d/%d hits=%d misses=%d evictions=%d",
+                days.size(), maxDays, hits, misses, evictions);
+    }
+
+    // ===== Internals =====
+
+    private Day dayForUpdate(String user, LocalDate date) {
+        Key k = new Key(user, date);
+        Day d = days.get(k);
+        if (d == null) {
+            d = load(k);
+            days.put(k, d);
+        }
+        return d;
+    }
+
+    private Day load(Key k) {
+        Day d = loader != null ? loader.load(k.user, k.date) : null;
+        return d != null ? new Day(d) : new Day();
+    }
+
+    private static String key(String email) {
+        return email == null ? "" : email.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Key {
+        final String user;
+        final LocalDate date;
+
+        Key(String user, LocalDate date) {
+            this.user = user;
+            this.date = date;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return user.equals(k.user) && date.equals(k.date);
+        }
+
+        @Override
+        public int hashCode() {
+            return user.hashCode() * 31 + date.hashCode();
+        }
+    }
+
+    /**
+     * Follows one session or meal for one user; equal per (cache, user) so it registers once.
+     * A detached tracker ignores what it is told and equals no other tracker, so the same
+     * session or meal can be recorded again. It stays registered (sessions and meals are
+     * not thread-safe, so it is not removed from another thread) and costs nothing there.
+     */
+    private static final class Tracker implements WorkoutSession.Listener, Meal.Listener {
+        final DailyRollupCache cache;
+        final String user;
+        volatile boolean detached; // set under the cache lock
+
+        Tracker(DailyRollupCache cache, String user) {
+            this.cache = cache;
+            this.user = user;
+        }
+
+        @Override
+        public void setAdded(WorkoutSession session, Exercise exercise, SetEntry set, double calories) {
+            LocalDate date = session.getStart().toLocalDate();
+            synchronized (cache) {
+                if (detached) return;
+                cache.dayForUpdate(user, date).burned += calories;
+            }
+        }
+
+        @Override
+        public void foodAdded(Meal meal, FoodItem food, double grams) {
+            double g = grams / 100.0;
+            synchronized (cache) {
+                if (detached) return;
+                Day d = cache.dayForUpdate(user, meal.getDate());
+                d.intake += food.getCaloriesPer100g() * g;
+                d.protein += food.getProteinPer100g() * g;
+                d.carbs += food.getCarbsPer100g() * g;
+                d.fat += food.getFatPer100g() * g;
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Tracker)) return false;
+            Tracker t = (Tracker) o;
+            if (this != t && (detached || t.detached)) return false;
+            return cache == t.cache && user.equals(t.user);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(cache), user);
+        }
+    }
+}
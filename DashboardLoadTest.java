@@ -0,0 +1,98 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load-test harness for DashboardServer.
+ * Starts the server once per executor mode, hammers one endpoint from many
+ * client threads and prints requests/second and latency percentiles.
+ * Run from the project root so data/ and ui/ are found.
+ *
+ * Run: java DashboardLoadTest [path] [clients] [requestsPerClient]
+ */
+public class DashboardLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        String path = args.length > 0 ? args[0] : "/api/sessions";
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+        int perClient = args.length > 2 ? Integer.parseInt(args[2]) : 300;
+
+        UserStore store = new UserStore("data/users.csv");
+        for (DashboardServer.ExecutorMode mode : DashboardServer.ExecutorMode.values()) {
+            DashboardServer.Config config = new DashboardServer.Config();
+            config.port = 0; // any free port
+            config.backlog = 1024;
+            config.executorMode = mode;
+
+            DashboardServer.start(store, config);
+            try {
+                run(mode.name(), DashboardServer.getPort(), path, clients, perClient);
+            } finally {
+                DashboardServer.stop();
+            }
+        }
+    }
+
+    private static void run(String label, int port, String path, int clients, int perClient) throws Exception {
+        ExecutorService clientExecutor = Executors.newFixedThreadPool(4);
+        HttpClient http = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(clientExecutor)
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).build();
+
+        // warm-up
+        for (int i = 0; i < 200; i++) {
+            http.send(request, HttpResponse.BodyHandlers.discarding());
+        }
+
+        long[] latencies = new long[clients * perClient];
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        Future<?>[] futures = new Future<?>[clients];
+
+        long start = System.nanoTime();
+        for (int c = 0; c < clients; c++) {
+            futures[c] = pool.submit(() -> {
+                for (int i = 0; i < perClient; i++) {
+                    long t0 = System.nanoTime();
+                    int status;
+                    try {
+                        status = http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    } catch (Exception e) {
+                        status = -1;
+                    }
+                    latencies[next.getAndIncrement()] = System.nanoTime() - t0;
+                    if (status != 200) errors.incrementAndGet();
+                }
+                return null;
+            });
+        }
+        for (Future<?> f : futures) f.get();
+        long elapsed = System.nanoTime() - start;
+        pool.shutdown();
+        clientExecutor.shutdown();
+
+        Arrays.sort(latencies);
+        System.out.printf("%-8s %8.0f req/s   p50=%6.2f ms   p99=%6.2f ms   max=%6.2f ms   errors=%d%n",
+                label,
+                latencies.length / (elapsed / 1e9),
+                percentile(latencies, 0.50) / 1e6,
+                percentile(latencies, 0.99) / 1e6,
+                latencies[latencies.length - 1] / 1e6,
+                errors.get());
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        int idx = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(idx, sorted.length - 1))];
+    }
+}
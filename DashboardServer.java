@@ -1,52 +1,284 @@
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpContext;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.lang.reflect.Method;
 import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPOutputStream;
 
 public class DashboardServer {
 
     private static HttpServer server;
     // We keep a reference in case you want to use it later
-    private static UserStore userStoreRef;
+    private static UserRepository userStoreRef;
+    private static final String DATA_DIR = "data";
 
-    public static void start(UserStore userStore) throws IOException {
+    private static ExecutorService executor;
+    private static Semaphore inFlight;
+    private static StaticFileHandler staticHandler;
+    private static StaticFileHandler dashboardPage;
+    private static LiveFeed liveFeed;
+    private static AppProgressStore.Listener weightListener;
+
+    /** How requests are run. DEFAULT is the JDK's single dispatcher thread. */
+    public enum ExecutorMode { DEFAULT, POOL, VIRTUAL }
+
+    /**
+     * Server settings. Defaults can be overridden with system properties:
+     * dashboard.port, dashboard.backlog (0 = JDK default), dashboard.executor
+     * (default|pool|virtual), dashboard.threads (pool size),
+     * dashboard.maxInFlight (0 = unlimited), dashboard.liveCoalesceMillis,
+     * dashboard.liveMaxStreams, dashboard.liveWriterThreads and
+     * dashboard.liveWriteTimeoutMillis.
+     */
+    public static class Config {
+        public int port = 8000;
+        public int backlog = 0;
+        public ExecutorMode executorMode = ExecutorMode.DEFAULT;
+        public int poolThreads = Runtime.getRuntime().availableProcessors() * 2;
+        public int maxInFlight = 0;
+        public long liveCoalesceMillis = 250;   // at most one live update per user per interval
+        public int liveMaxStreams = 10_000;
+        public int liveWriterThreads = 16;        // blocking writes; a stuck client holds one until its timeout
+        public long liveWriteTimeoutMillis = 10_000;
+
+        public static Config fromSystemProperties() {
+            Config c = new Config();
+            c.port = Integer.getInteger("dashboard.port", c.port);
+            c.backlog = Integer.getInteger("dashboard.backlog", c.backlog);
+            c.poolThreads = Integer.getInteger("dashboard.threads", c.poolThreads);
+            c.maxInFlight = Integer.getInteger("dashboard.maxInFlight", c.maxInFlight);
+            c.liveCoalesceMillis = Long.getLong("dashboard.liveCoalesceMillis", c.liveCoalesceMillis);
+            c.liveMaxStreams = Integer.getInteger("dashboard.liveMaxStreams", c.liveMaxStreams);
+            c.liveWriterThreads = Integer.getInteger("dashboard.liveWriterThreads", c.liveWriterThreads);
+            c.liveWriteTimeoutMillis = Long.getLong("dashboard.liveWriteTimeoutMillis", c.liveWriteTimeoutMillis);
+            String mode = System.getProperty("dashboard.executor");
+            if (mode != null) {
+                c.executorMode = ExecutorMode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+            }
+            return c;
+        }
+    }
+
+    public static void start(UserRepository userStore) throws IOException {
+        start(userStore, Config.fromSystemProperties());
+    }
+
+    public static void start(UserRepository userStore, Config config) throws IOException {
         // already running
         if (server != null) {
             return;
         }
 
         userStoreRef = userStore;
+        inFlight = config.maxInFlight > 0 ? new Semaphore(config.maxInFlight) : null;
 
-        int port = 8000;
-        server = HttpServer.create(new InetSocketAddress(port), 0);
+        // Chunked JSON responses stall on delayed ACKs unless Nagle is off.
+        // The JDK reads this once, when the first server is created.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        server = HttpServer.create(new InetSocketAddress(config.port), config.backlog);
 
         // Serve the main dashboard page from ui/index.html
-        server.createContext("/", new StaticFileHandler("ui/index.html"));
+        staticHandler = new StaticFileHandler("ui/index.html");
+        addContext("/", staticHandler);
+        // Live dashboard, same origin as /api/live/ (open with ?email=...)
+        dashboardPage = new StaticFileHandler("ui/dashboard.html");
+        addContext("/dashboard.html", dashboardPage);
+
+        // JSON API, streamed straight from the store and the CSV exports
+        addContext("/api/users/", new UserApiHandler());
+        addContext("/api/login", new LoginApiHandler());
+        addContext("/api/progress/", new ProgressApiHandler());
+        addContext("/api/sessions", new CsvApiHandler("sessions-",
+                Set.of("setNumber", "reps", "weightKg", "durationSec")));
+        addContext("/api/meals", new CsvApiHandler("meals-",
+                Set.of("grams", "cal_per_100g", "calories", "protein_g", "carbs_g", "fat_g")));
+
+        // Raw export downloads (data/*.csv, data/*.json) with Range support
+        addContext("/api/exports/", new ExportDownloadHandler());
 
-        // You could add more endpoints here later, e.g. /api/user, etc.
+        // Live updates (Server-Sent Events); weight logs come in through AppProgressStore,
+        // sessions and meals once the app hands them to liveFeed().follow(...)
+        liveFeed = new LiveFeed(config.liveCoalesceMillis, config.liveWriterThreads,
+                config.liveWriteTimeoutMillis, config.liveMaxStreams);
+        weightListener = DashboardServer::weightLogged;
+        AppProgressStore.addListener(weightListener);
+        addContext("/api/live/", new LiveApiHandler());
 
-        server.setExecutor(null); // default executor
+        executor = createExecutor(config);
+        server.setExecutor(executor); // null = default executor
         server.start();
     }
 
     public static void stop() {
+        if (liveFeed != null) {
+            AppProgressStore.removeListener(weightListener);
+            liveFeed.close(); // ends the open streams, or server.stop would wait for them
+            liveFeed = null;
+        }
         if (server != null) {
             server.stop(0);
             server = null;
         }
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+        if (staticHandler != null) {
+            try {
+                staticHandler.close();
+            } catch (IOException ignored) {}
+            staticHandler = null;
+        }
+        if (dashboardPage != null) {
+            try {
+                dashboardPage.close();
+            } catch (IOException ignored) {}
+            dashboardPage = null;
+        }
+    }
+
+    /** Feed behind /api/live/, for following sessions and meals; null when not running. */
+    public static LiveFeed liveFeed() {
+        return liveFeed;
+    }
+
+    private static void weightLogged(String email, AppWeightLog log) {
+        LiveFeed feed = liveFeed;
+        if (feed == null) return;
+        try {
+            feed.weightLogged(email, LocalDate.parse(log.date), log.weightKg);
+        } catch (DateTimeParseException e) {
+            // not a dated entry, nothing to show live
+        }
+    }
+
+    /** Port actually bound, useful when started with port 0. */
+    public static int getPort() {
+        return server != null ? server.getAddress().getPort() : -1;
+    }
+
+    private static void addContext(String path, HttpHandler handler) {
+        HttpContext ctx = server.createContext(path, handler);
+        if (inFlight != null) {
+            ctx.getFilters().add(new InFlightLimitFilter(inFlight));
+        }
+    }
+
+    private static ExecutorService createExecutor(Config config) {
+        switch (config.executorMode) {
+            case POOL:
+                return Executors.newFixedThreadPool(config.poolThreads);
+            case VIRTUAL:
+                // Virtual threads need Java 21+; looked up reflectively so the code still builds on 17.
+                try {
+                    Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                    return (ExecutorService) m.invoke(null);
+                } catch (ReflectiveOperationException e) {
+                    System.err.println("Virtual threads not available on this JVM, using a cached thread pool");
+                    return Executors.newCachedThreadPool();
+                }
+            default:
+                return null;
+        }
+    }
+
+    // ===== Rejects requests with 503 once maxInFlight are already running =====
+    private static class InFlightLimitFilter extends Filter {
+        private final Semaphore permits;
+
+        InFlightLimitFilter(Semaphore permits) {
+            this.permits = permits;
+        }
+
+        @Override
+        public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+            if (!permits.tryAcquire()) {
+                exchange.getResponseHeaders().add("Retry-After", "1");
+                exchange.sendResponseHeaders(503, -1);
+                exchange.close();
+                return;
+            }
+            try {
+                chain.doFilter(exchange);
+            } finally {
+                permits.release();
+            }
+        }
+
+        @Override
+        public String description() {
+            return "Limits concurrent requests";
+        }
     }
 
-    // ===== Simple handler to serve a single static file =====
-    private static class StaticFileHandler implements HttpHandler {
+    // ===== Handler to serve a single static file =====
+    // The file is kept in memory (plain and gzipped) and dropped from the cache
+    // when a WatchService sees it change, so repeated dashboard loads skip the disk.
+    // Without a working watcher each request compares the file's modification
+    // time and size with the cached copy and reads it again if either changed.
+    private static class StaticFileHandler implements HttpHandler, Closeable {
+        private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter.RFC_1123_DATE_TIME;
+
         private final String filePath;
+        // (version, asset) swapped as one, so an asset read before a change can never be
+        // published after it; the version is bumped on every file change
+        private final AtomicReference<CacheSlot> slot = new AtomicReference<>(new CacheSlot(0, null));
+        private WatchService watcher;
+        // true while the watcher thread runs; the cache is trusted without a disk check only then
+        private volatile boolean watching;
 
         StaticFileHandler(String filePath) {
             this.filePath = filePath;
+            startWatcher();
         }
 
         @Override
@@ -56,24 +288,718 @@ public class DashboardServer {
                 return;
             }
 
-            Path path = Paths.get(filePath);
-            byte[] bytes;
-            int statusCode;
-
-            if (Files.exists(path)) {
-                bytes = Files.readAllBytes(path);
-                statusCode = 200;
-            } else {
-                String notFound = "<h1>404 - index.html not found</h1>"
+            CachedAsset asset = load();
+            if (asset == null) {
+                String notFound = "<h1>404 - " + Paths.get(filePath).getFileName() + " not found</h1>"
                         + "<p>Expected file at: " + filePath + "</p>";
-                bytes = notFound.getBytes();
-                statusCode = 404;
+                byte[] bytes = notFound.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "text/html; charset=UTF-8");
+                exchange.sendResponseHeaders(404, bytes.length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    os.write(bytes);
+                }
+                return;
             }
 
-            exchange.getResponseHeaders().add("Content-Type", "text/html; charset=UTF-8");
-            exchange.sendResponseHeaders(statusCode, bytes.length);
+            boolean gzip = asset.gzipped != null && acceptsGzip(exchange.getRequestHeaders());
+            Headers h = exchange.getResponseHeaders();
+            h.add("ETag", gzip ? asset.gzipEtag : asset.etag);
+            h.add("Last-Modified", asset.lastModified);
+            h.add("Cache-Control", "no-cache"); // always revalidate, usually answered with 304
+            h.add("Vary", "Accept-Encoding");
+
+            if (notModified(exchange.getRequestHeaders(), asset)) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+
+            byte[] body = asset.bytes;
+            if (gzip) {
+                body = asset.gzipped;
+                h.add("Content-Encoding", "gzip");
+            }
+            h.add("Content-Type", asset.contentType);
+            exchange.sendResponseHeaders(200, body.length);
             try (OutputStream os = exchange.getResponseBody()) {
-                os.write(bytes);
+                os.write(body);
+            }
+        }
+
+        private CachedAsset load() throws IOException {
+            CacheSlot seen = slot.get();
+            boolean trusted = watching;
+            if (trusted && seen.asset != null) return seen.asset;
+
+            Path path = Paths.get(filePath);
+            BasicFileAttributes attrs;
+            try {
+                attrs = Files.readAttributes(path, BasicFileAttributes.class);
+            } catch (NoSuchFileException e) {
+                return null; // not cached; the watcher (or the next request) sees it when it shows up
+            }
+            if (!trusted && seen.asset != null && seen.asset.fileTime.equals(attrs.lastModifiedTime())
+                    && seen.asset.bytes.length == attrs.size()) {
+                return seen.asset;
+            }
+            // time taken before the read: a change during the read makes the next check reload
+            CachedAsset c = new CachedAsset(Files.readAllBytes(path), attrs.lastModifiedTime(),
+                    contentTypeFor(filePath));
+            // Only cache if the file did not change while we were reading it
+            slot.compareAndSet(seen, new CacheSlot(seen.version, c));
+            return c;
+        }
+
+        private static boolean notModified(Headers req, CachedAsset asset) {
+            String inm = req.getFirst("If-None-Match");
+            if (inm != null) {
+                for (String tag : inm.split(",")) {
+                    String t = tag.trim();
+                    if (t.startsWith("W/")) t = t.substring(2);
+                    if (t.equals("*") || t.equals(asset.etag) || t.equals(asset.gzipEtag)) return true;
+                }
+                return false; // If-None-Match wins over If-Modified-Since
+            }
+            String ims = req.getFirst("If-Modified-Since");
+            if (ims != null) {
+                try {
+                    Instant since = ZonedDateTime.parse(ims, HTTP_DATE).toInstant();
+                    return !asset.modified.isAfter(since);
+                } catch (DateTimeParseException ignored) {
+                    return false;
+                }
+            }
+            return false;
+        }
+
+        private static boolean acceptsGzip(Headers req) {
+            List<String> values = req.get("Accept-Encoding");
+            if (values == null) return false;
+            for (String v : values) {
+                for (String enc : v.split(",")) {
+                    String e = enc.trim().toLowerCase(Locale.ROOT);
+                    if (e.equals("gzip") || (e.startsWith("gzip;") && !e.replace(" ", "").endsWith("q=0"))) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private static String contentTypeFor(String file) {
+            String f = file.toLowerCase(Locale.ROOT);
+            if (f.endsWith(".css")) return "text/css; charset=UTF-8";
+            if (f.endsWith(".js")) return "application/javascript; charset=UTF-8";
+            if (f.endsWith(".json")) return "application/json; charset=UTF-8";
+            if (f.endsWith(".svg")) return "image/svg+xml";
+            if (f.endsWith(".png")) return "image/png";
+            return "text/html; charset=UTF-8";
+        }
+
+        private void startWatcher() {
+            Path dir = Paths.get(filePath).toAbsolutePath().getParent();
+            if (dir == null || !Files.isDirectory(dir)) {
+                return; // nothing to watch; every request checks the disk instead
+            }
+            Path name = Paths.get(filePath).getFileName();
+            try {
+                watcher = dir.getFileSystem().newWatchService();
+                dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            } catch (IOException e) {
+                System.err.println("Static file watcher disabled: " + e.getMessage());
+                watcher = null;
+                return;
+            }
+
+            WatchService ws = watcher;
+            watching = true;
+            Thread t = new Thread(() -> {
+                try {
+                    while (true) {
+                        WatchKey key = ws.take();
+                        for (WatchEvent<?> ev : key.pollEvents()) {
+                            // OVERFLOW has no context; drop the cache to be safe
+                            if (ev.context() == null || name.equals(ev.context())) {
+                                slot.updateAndGet(cur -> new CacheSlot(cur.version + 1, null));
+                            }
+                        }
+                        if (!key.reset()) break;
+                    }
+                } catch (InterruptedException | ClosedWatchServiceException ignored) {
+                    // server stopped
+                } finally {
+                    watching = false; // e.g. the directory went away: fall back to checking the disk
+                }
+            }, "static-file-watcher");
+            t.setDaemon(true);
+            t.start();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (watcher != null) watcher.close();
+        }
+    }
+
+    private static final class CacheSlot {
+        final long version;
+        final CachedAsset asset; // null: not cached
+
+        CacheSlot(long version, CachedAsset asset) {
+            this.version = version;
+            this.asset = asset;
+        }
+    }
+
+    private static class CachedAsset {
+        final byte[] bytes;
+        final byte[] gzipped; // null when compressing does not help
+        final String etag;
+        final String gzipEtag; // each encoding gets its own tag
+        final FileTime fileTime; // as read from the file system, to notice changes without a watcher
+        final Instant modified;
+        final String lastModified;
+        final String contentType;
+
+        CachedAsset(byte[] bytes, FileTime fileTime, String contentType) throws IOException {
+            this.bytes = bytes;
+            this.fileTime = fileTime;
+            this.modified = fileTime.toInstant().truncatedTo(ChronoUnit.SECONDS); // HTTP dates have 1s resolution
+            this.lastModified = StaticFileHandler.HTTP_DATE.format(this.modified.atZone(ZoneOffset.UTC));
+            this.contentType = contentType;
+
+            CRC32 crc = new CRC32();
+            crc.update(bytes);
+            String tag = Integer.toHexString(bytes.length) + "-" + Long.toHexString(crc.getValue());
+            this.etag = "\"" + tag + "\"";
+            this.gzipEtag = "\"" + tag + "-gz\"";
+
+            ByteArrayOutputStream bos = new ByteArrayOutputStream(bytes.length / 2 + 64);
+            try (GZIPOutputStream gz = new GZIPOutputStream(bos)) {
+                gz.write(bytes);
+            }
+            this.gzipped = bos.size() < bytes.length ? bos.toByteArray() : null;
+        }
+    }
+
+    // ===== JSON API helpers =====
+
+    private static JsonWriter startJson(HttpExchange exchange, int statusCode) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/json; charset=UTF-8");
+        exchange.sendResponseHeaders(statusCode, 0); // chunked, length not known up front
+        return new JsonWriter(new BufferedWriter(
+                new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8)));
+    }
+
+    private static void sendJsonError(HttpExchange exchange, int statusCode, String message) throws IOException {
+        try (JsonWriter json = startJson(exchange, statusCode)) {
+            json.beginObject().name("error").value(message).endObject();
+        }
+    }
+
+    /** The URL-decoded rest of the path after prefix, or null if it has a malformed %-escape. */
+    private static String pathTail(HttpExchange exchange, String prefix) {
+        String raw = exchange.getRequestURI().getRawPath().substring(prefix.length());
+        try {
+            return URLDecoder.decode(raw, StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String queryParam(HttpExchange exchange, String name) {
+        return formParam(exchange.getRequestURI().getRawQuery(), name);
+    }
+
+    /**
+     * Value of one field of an application/x-www-form-urlencoded string, or null.
+     * Throws IllegalArgumentException (from URLDecoder) on a malformed %-escape.
+     */
+    private static String formParam(String query, String name) {
+        if (query == null) return null;
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0 && pair.substring(0, eq).equals(name)) {
+                return URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    // ===== GET /api/users/{email} =====
+    private static class UserApiHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!"GET".equalsIgnoreCase(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            UserRepository store = userStoreRef;
+            if (store == null) {
+                sendJsonError(exchange, 503, "User store not available");
+                return;
+            }
+
+            String email = pathTail(exchange, "/api/users/");
+            if (email == null) {
+                sendJsonError(exchange, 400, "Malformed escape in URL");
+                return;
+            }
+            User u = store.findByEmail(email);
+            if (u == null) {
+                sendJsonError(exchange, 404, "User not found");
+                return;
+            }
+
+            sendUser(exchange, u);
+        }
+    }
+
+    // never send the password (or its hash)
+    private static void sendUser(HttpExchange exchange, User u) throws IOException {
+        try (JsonWriter json = startJson(exchange, 200)) {
+            json.beginObject()
+                .name("email").value(u.getEmail())
+                .name("username").value(u.getUsername())
+                .name("fullName").value(u.getFullName())
+                .name("bodyWeightKg").value(u.getBodyWeightKg())
+                .name("heightCm").value(u.getHeightCm())
+                .name("goal").value(u.getGoal())
+                .endObject();
+        }
+    }
+
+    // ===== POST /api/login (form body: email=...&password=...) =====
+    // The password hash runs on the repository's hashing pool and the response
+    // is sent from there, so the dispatcher thread is free again right away.
+    private static class LoginApiHandler implements HttpHandler {
+        private static final int MAX_BODY = 4096;
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().add("Allow", "POST");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            UserRepository store = userStoreRef;
+            if (store == null) {
+                sendJsonError(exchange, 503, "User store not available");
+                return;
+            }
+
+            byte[] body;
+            try (InputStream in = exchange.getRequestBody()) {
+                body = in.readNBytes(MAX_BODY + 1);
+            }
+            if (body.length > MAX_BODY) {
+                sendJsonError(exchange, 413, "Request body too large");
+                return;
+            }
+            String form = new String(body, StandardCharsets.UTF_8);
+            String email;
+            String password;
+            try {
+                email = formParam(form, "email");
+                password = formParam(form, "password");
+            } catch (IllegalArgumentException e) {
+                sendJsonError(exchange, 400, "Malformed escape in form body");
+                return;
+            }
+            if (email == null || password == null) {
+                sendJsonError(exchange, 400, "email and password are required");
+                return;
+            }
+
+            store.loginAsync(email, password).whenComplete((u, err) -> {
+                try {
+                    if (err != null) {
+                        if (err.getCause() instanceof RejectedExecutionException
+                                || err instanceof RejectedExecutionException) {
+                            exchange.getResponseHeaders().add("Retry-After", "1");
+                            sendJsonError(exchange, 503, "Too many logins in progress");
+                        } else {
+                            err.printStackTrace();
+                            sendJsonError(exchange, 500, "Login failed");
+                        }
+                    } else if (u == null) {
+                        sendJsonError(exchange, 401, "Invalid email or password");
+                    } else {
+                        sendUser(exchange, u);
+                    }
+                } catch (IOException e) {
+                    // client went away
+                } finally {
+                    exchange.close();
+                }
+            });
+        }
+    }
+
+    // ===== GET /api/live/{email}: Server-Sent Events, see LiveFeed =====
+    // handle() only opens the stream and returns; LiveFeed's threads write to it
+    // afterwards, so an open dashboard holds no request thread or in-flight permit.
+    private static class LiveApiHandler implements HttpHandler {
+        private static final byte[] PREAMBLE = "retry: 3000\n\n".getBytes(StandardCharsets.US_ASCII);
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!"GET".equalsIgnoreCase(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            String email = pathTail(exchange, "/api/live/");
+            if (email == null) {
+                sendJsonError(exchange, 400, "Malformed escape in URL");
+                return;
+            }
+            if (email.isEmpty() || email.contains("/")) {
+                sendJsonError(exchange, 400, "Bad email");
+                return;
+            }
+            UserRepository store = userStoreRef;
+            if (store == null || store.findByEmail(email) == null) {
+                // streams only for real accounts, so random paths cannot pile up feed state
+                sendJsonError(exchange, 404, "User not found");
+                return;
+            }
+            LiveFeed feed = liveFeed;
+            if (feed == null || !feed.hasCapacity()) {
+                exchange.getResponseHeaders().set("Retry-After", "5");
+                sendJsonError(exchange, 503, "Too many live dashboards");
+                return;
+            }
+
+            Headers h = exchange.getResponseHeaders();
+            h.set("Content-Type", "text/event-stream; charset=UTF-8");
+            h.set("Cache-Control", "no-cache");
+            exchange.sendResponseHeaders(200, 0);
+            OutputStream os = exchange.getResponseBody();
+            os.write(PREAMBLE);
+            os.flush();
+
+            boolean subscribed = feed.subscribe(email, new LiveFeed.Sink() {
+                @Override
+                public void send(byte[] message) throws IOException {
+                    os.write(message);
+                    os.flush();
+                }
+
+                @Override
+                public void close() {
+                    exchange.close();
+                }
+            });
+            if (!subscribed) {
+                exchange.close(); // filled up since the check; the client retries
+            }
+        }
+    }
+
+    // ===== GET /api/progress/{email} =====
+    // Weight statistics from the in-memory series (no re-reading of the progress CSV).
+    private static class ProgressApiHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!"GET".equalsIgnoreCase(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            String email = pathTail(exchange, "/api/progress/");
+            if (email == null) {
+                sendJsonError(exchange, 400, "Malformed escape in URL");
+                return;
+            }
+            if (email.isEmpty() || email.contains("/") || email.contains("\\")) {
+                sendJsonError(exchange, 400, "Bad email");
+                return;
+            }
+
+            // read everything under the store lock, write the response after releasing it
+            Stats st = AppProgressStore.withSeries(email, Stats::new);
+            try (JsonWriter json = startJson(exchange, 200)) {
+                json.beginObject().name("logs").value(st.logs);
+                if (st.logs > 0) {
+                    json.name("firstDate").value(st.first.toString())
+                        .name("lastDate").value(st.last.toString())
+                        .name("latestKg").value(st.latest, 1);
+                    number(json, "avg7Kg", st.avg7);
+                    number(json, "avg30Kg", st.avg30);
+                    number(json, "weeklyDeltaKg", st.weeklyDelta);
+                    json.name("trend30").beginObject()
+                        .name("points").value(st.trend.points);
+                    number(json, "kgPerWeek", st.trend.slopePerWeek());
+                    number(json, "fittedKg", st.trend.fittedEnd);
+                    json.endObject();
+                }
+                json.endObject();
+            }
+        }
+
+        private static void number(JsonWriter json, String name, double v) throws IOException {
+            json.name(name);
+            if (Double.isNaN(v)) json.nullValue();
+            else json.value(v, 2);
+        }
+
+        private static class Stats {
+            final int logs;
+            LocalDate first, last;
+            double latest, avg7, avg30, weeklyDelta;
+            WeightSeries.Trend trend;
+
+            Stats(WeightSeries s) {
+                logs = s.size();
+                if (logs == 0) return;
+                first = s.firstDate();
+                last = s.lastDate();
+                latest = s.latest();
+                avg7 = s.movingAverage(last, 7);
+                avg30 = s.movingAverage(last, 30);
+                weeklyDelta = s.weeklyDelta(last);
+                trend = s.trend(last, 30);
+            }
+        }
+    }
+
+    // ===== GET /api/sessions and /api/meals =====
+    // Streams every row of data/<prefix>*.csv as a JSON object keyed by the header.
+    // Optional ?date=YYYY-MM-DD limits the output to that day's file.
+    private static class CsvApiHandler implements HttpHandler {
+        private final String prefix;
+        private final Set<String> numericColumns;
+
+        CsvApiHandler(String prefix, Set<String> numericColumns) {
+            this.prefix = prefix;
+            this.numericColumns = numericColumns;
+        }
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            if (!"GET".equalsIgnoreCase(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            String date;
+            try {
+                date = queryParam(exchange, "date");
+            } catch (IllegalArgumentException e) {
+                sendJsonError(exchange, 400, "Malformed escape in query");
+                return;
+            }
+            if (date != null && !date.matches("\\d{4}-\\d{2}-\\d{2}")) {
+                sendJsonError(exchange, 400, "date must be YYYY-MM-DD");
+                return;
+            }
+
+            List<Path> files = listFiles(date);
+            try (JsonWriter json = startJson(exchange, 200)) {
+                json.beginArray();
+                for (Path file : files) {
+                    writeRows(file, json);
+                }
+                json.endArray();
+            }
+        }
+
+        private List<Path> listFiles(String date) throws IOException {
+            List<Path> files = new ArrayList<>();
+            Path dir = Paths.get(DATA_DIR);
+            if (!Files.isDirectory(dir)) return files;
+            String glob = prefix + (date != null ? date : "*") + ".csv";
+            try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, glob)) {
+                for (Path p : ds) files.add(p);
+            }
+            Collections.sort(files); // file names carry the date, so this is chronological
+            return files;
+        }
+
+        private void writeRows(Path file, JsonWriter json) throws IOException {
+            try (BufferedReader br = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String headerLine = br.readLine();
+                if (headerLine == null) return;
+                List<String> header = Csv.split(headerLine);
+
+                String line;
+                while ((line = br.readLine()) != null) {
+                    if (line.isBlank()) continue;
+                    List<String> fields = Csv.split(line);
+                    json.beginObject();
+                    for (int i = 0; i < header.size() && i < fields.size(); i++) {
+                        String column = header.get(i);
+                        json.name(column);
+                        writeField(json, fields.get(i), numericColumns.contains(column));
+                    }
+                    json.endObject();
+                }
+            }
+        }
+
+        private static void writeField(JsonWriter json, String value, boolean numeric) throws IOException {
+            if (!numeric) {
+                json.value(value);
+                return;
+            }
+            try {
+                if (value.indexOf('.') < 0) {
+                    json.value(Long.parseLong(value));
+                } else {
+                    json.value(Double.parseDouble(value));
+                }
+            } catch (NumberFormatException e) {
+                json.nullValue();
+            }
+        }
+    }
+
+    // ===== GET/HEAD /api/exports/{file} =====
+    // Streams data/<export> from a FileChannel without reading it into memory.
+    // Supports a single "Range: bytes=..." so clients can resume or tail an export.
+    // GET /api/exports/ lists the available files.
+    private static class ExportDownloadHandler implements HttpHandler {
+        private static final String PREFIX = "/api/exports/";
+        // Session/meal exports only; data/ also holds users.csv, which must never be served
+        private static final String EXPORT_NAME = "(sessions?|meals)-[A-Za-z0-9._-]+\\.(csv|json)";
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            String method = exchange.getRequestMethod();
+            boolean head = "HEAD".equalsIgnoreCase(method);
+            if (!head && !"GET".equalsIgnoreCase(method)) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            String name = pathTail(exchange, PREFIX);
+            if (name == null) {
+                sendJsonError(exchange, 400, "Malformed escape in URL");
+                return;
+            }
+            if (name.isEmpty()) {
+                listExports(exchange);
+                return;
+            }
+            // plain file names only, nothing that could walk out of data/
+            if (!name.matches(EXPORT_NAME)) {
+                sendJsonError(exchange, 404, "Unknown export");
+                return;
+            }
+            Path file = Paths.get(DATA_DIR, name);
+            if (!Files.isRegularFile(file)) {
+                sendJsonError(exchange, 404, "Unknown export");
+                return;
+            }
+
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+                long size = ch.size();
+                long start = 0;
+                long end = size - 1;
+                int status = 200;
+
+                Headers h = exchange.getResponseHeaders();
+                h.add("Content-Type", name.endsWith(".json")
+                        ? "application/json; charset=UTF-8" : "text/csv; charset=UTF-8");
+                h.add("Accept-Ranges", "bytes");
+                h.add("Last-Modified", StaticFileHandler.HTTP_DATE.format(
+                        Files.getLastModifiedTime(file).toInstant().atZone(ZoneOffset.UTC)));
+
+                String range = exchange.getRequestHeaders().getFirst("Range");
+                if (range != null) {
+                    long[] r = parseRange(range, size);
+                    if (r == null) {
+                        h.add("Content-Range", "bytes */" + size);
+                        exchange.sendResponseHeaders(416, -1);
+                        exchange.close();
+                        return;
+                    }
+                    if (r.length == 2) {
+                        start = r[0];
+                        end = r[1];
+                        status = 206;
+                        h.add("Content-Range", "bytes " + start + "-" + end + "/" + size);
+                    }
+                }
+
+                long length = end - start + 1;
+                if (head || length == 0) {
+                    if (head) h.add("Content-Length", Long.toString(length));
+                    exchange.sendResponseHeaders(status, -1);
+                    exchange.close();
+                    return;
+                }
+
+                exchange.sendResponseHeaders(status, length);
+                try (OutputStream os = exchange.getResponseBody()) {
+                    // HttpServer only hands out an OutputStream, so wrap it as a channel and
+                    // let transferTo move the bytes without a whole-file buffer.
+                    WritableByteChannel out = Channels.newChannel(os);
+                    long pos = start;
+                    long remaining = length;
+                    while (remaining > 0) {
+                        long n = ch.transferTo(pos, remaining, out);
+                        if (n <= 0) break; // file shrank underneath us
+                        pos += n;
+                        remaining -= n;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Parses a single byte range against a file of the given size.
+         * Returns {start, end} (inclusive), an empty array if the header should be
+         * ignored (multi-range or malformed), or null if the range is unsatisfiable.
+         */
+        static long[] parseRange(String header, long size) {
+            String v = header.trim();
+            if (!v.startsWith("bytes=") || v.indexOf(',') >= 0) return new long[0];
+            v = v.substring("bytes=".length()).trim();
+            int dash = v.indexOf('-');
+            if (dash < 0) return new long[0];
+            try {
+                String a = v.substring(0, dash).trim();
+                String b = v.substring(dash + 1).trim();
+                long start;
+                long end;
+                if (a.isEmpty()) {
+                    // suffix range: the last N bytes
+                    long n = Long.parseLong(b);
+                    if (n <= 0) return null;
+                    start = Math.max(0, size - n);
+                    end = size - 1;
+                } else {
+                    start = Long.parseLong(a);
+                    end = b.isEmpty() ? size - 1 : Math.min(Long.parseLong(b), size - 1);
+                }
+                if (start >= size || start > end) return null;
+                return new long[]{start, end};
+            } catch (NumberFormatException e) {
+                return new long[0];
+            }
+        }
+
+        private static void listExports(HttpExchange exchange) throws IOException {
+            List<Path> files = new ArrayList<>();
+            Path dir = Paths.get(DATA_DIR);
+            if (Files.isDirectory(dir)) {
+                try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, "*.{csv,json}")) {
+                    for (Path p : ds) {
+                        if (p.getFileName().toString().matches(EXPORT_NAME)) files.add(p);
+                    }
+                }
+            }
+            Collections.sort(files);
+            try (JsonWriter json = startJson(exchange, 200)) {
+                json.beginArray();
+                for (Path p : files) {
+                    json.beginObject()
+                        .name("name").value(p.getFileName().toString())
+                        .name("size").value(Files.size(p))
+                        .endObject();
+                }
+                json.endArray();
             }
         }
     }
@@ -0,0 +1,78 @@
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point number formatting without java.util.Formatter.
+ * Produces the same text as String.format("%.Nf", v) in an English locale
+ * (HALF_UP on the shortest decimal form of v), but writes the digits straight
+ * into a caller's char buffer on the common path.
+ */
+public final class Decimals {
+    /** Longest possible output: 309 integer digits of Double.MAX_VALUE, sign, point, 6 decimals. */
+    public static final int MAX_CHARS = 320;
+
+    private static final long[] POW10 = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000};
+
+    private Decimals() {}
+
+    /**
+     * Writes v with the given number of decimals (0..6) into dst at off.
+     * Returns the new end offset. dst needs MAX_CHARS free chars from off.
+     */
+    public static int format(double v, int decimals, char[] dst, int off) {
+        if (decimals < 0 || decimals >= POW10.length) {
+            throw new IllegalArgumentException("decimals must be 0.." + (POW10.length - 1));
+        }
+        long scale = POW10[decimals];
+        double scaled = v * scale;
+        double frac = Math.abs(scaled - Math.floor(scaled));
+        // Near a .5 tie the formatter rounds the decimal form of v, which plain
+        // Math.round on the binary value can get wrong (1.005 -> "1.01"); those,
+        // negatives and huge values take the exact slow path.
+        if (v < 0 || !(Math.abs(scaled) < 1e15) || Math.abs(frac - 0.5) < 1e-6) {
+            String s = slow(v, decimals);
+            s.getChars(0, s.length(), dst, off);
+            return off + s.length();
+        }
+
+        long units = Math.round(scaled);
+        off = writeLong(units / scale, dst, off);
+        if (decimals > 0) {
+            dst[off++] = '.';
+            long rest = units % scale;
+            for (int i = decimals - 1; i >= 0; i--) {
+                dst[off + i] = (char) ('0' + rest % 10);
+                rest /= 10;
+            }
+            off += decimals;
+        }
+        return off;
+    }
+
+    /** Convenience for callers that want a String anyway. */
+    public static String toString(double v, int decimals) {
+        char[] buf = new char[MAX_CHARS];
+        return new String(buf, 0, format(v, decimals, buf, 0));
+    }
+
+    /** Writes a non-negative long into dst at off, returns the new end offset. */
+    static int writeLong(long v, char[] dst, int off) {
+        int start = off;
+        do {
+            dst[off++] = (char) ('0' + (v % 10));
+            v /= 10;
+        } while (v != 0);
+        // digits came out backwards
+        for (int i = start, j = off - 1; i < j; i++, j--) {
+            char t = dst[i];
+            dst[i] = dst[j];
+            dst[j] = t;
+        }
+        return off;
+    }
+
+    private static String slow(double v, int decimals) {
+        if (Double.isNaN(v) || Double.isInfinite(v)) return Double.toString(v);
+        return new BigDecimal(Double.toString(v)).setScale(decimals, RoundingMode.HALF_UP).toPlainString();
+    }
+}
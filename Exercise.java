@@ -1,12 +1,15 @@
-import java.util.UUID;
-
 public abstract class Exercise {
-    protected final UUID id = UUID.randomUUID();
+    // Stable per (name, kind, parameters) (see Registry): equal means it behaves the same
+    protected final int id;
+    protected final int nameId; // shared by every exercise with this name
     protected final String name;
     protected final String targetMuscle;
     protected final String instructions;
 
-    protected Exercise(String name, String targetMuscle, String instructions) {
+    /** variant: whatever besides the kind changes estimateCalories, so it is part of the identity. */
+    protected Exercise(String name, String targetMuscle, String instructions, String variant) {
+        this.id = Registry.EXERCISES.idFor(name, getClass().getName() + ':' + variant);
+        this.nameId = Registry.EXERCISES.nameIdFor(name);
         this.name = name;
         this.targetMuscle = targetMuscle;
         this.instructions = instructions;
@@ -15,6 +18,11 @@ public abstract class Exercise {
     /** Estimate calories for one set/interval of this exercise. */
     public abstract double estimateCalories(SetEntry set);
 
+    public int getId() { return id; }
+    public int getNameId() { return nameId; }
     public String getName() { return name; }
+
+    @Override public boolean equals(Object o) { return o instanceof Exercise && ((Exercise) o).id == id; }
+    @Override public int hashCode() { return id; }
     @Override public String toString() { return name; }
 }
@@ -0,0 +1,254 @@
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-exercise personal records and training volume across all sessions.
+ *
+ * For each exercise it keeps the best estimated one-rep max, the heaviest
+ * set, total volume (reps x weight), set/rep counts and volume per week
+ * (Monday to Sunday) in a dense array, so "bench press PR" is a hash lookup
+ * and "last 8 weeks of squat volume" reads eight array slots.
+ *
+ * Fill it once from history (addHistory, addColumns), then recordSession
+ * each new session: its sets so far are added and later addSet calls are
+ * followed, as in DailyRollupCache. Entries sit in an array indexed by the
+ * exercise's Registry name id, so every "Bench Press" object (of any kind,
+ * and names from files, any case) shares one entry.
+ *
+ * 1RM uses the Epley formula, weight x (1 + reps / 30), on sets of 1 to
+ * MAX_REPS_FOR_1RM reps; past that the estimate is too loose to be a record.
+ */
+public class ExerciseStatsIndex {
+
+    public static final int MAX_REPS_FOR_1RM = 12;
+
+    /** Snapshot of one exercise's records and totals. */
+    public static class Stats {
+        public final String exercise;
+        public double best1RM;          // kg, 0 if no weighted set yet
+        public LocalDate best1RMDate;
+        public double topSetWeight;     // heaviest weight lifted (most reps on ties)
+        public int topSetReps;
+        public LocalDate topSetDate;
+        public double totalVolume;      // sum of reps x weight
+        public long totalSets;
+        public long totalReps;
+
+        Stats(String exercise) {
+            this.exercise = exercise;
+        }
+
+        Stats(Stats s) {
+            exercise = s.exercise;
+            best1RM = s.best1RM;
+            best1RMDate = s.best1RMDate;
+            topSetWeight = s.topSetWeight;
+            topSetReps = s.topSetReps;
+            topSetDate = s.topSetDate;
+            totalVolume = s.totalVolume;
+            totalSets = s.totalSets;
+            totalReps = s.totalReps;
+        }
+    }
+
+    private Entry[] byId = new Entry[64]; // Registry.EXERCISES name id -> entry; guarded by this
+    private int exercises;
+
+    // ===== Recording =====
+
+    /** Adds the session's sets and follows the ones added later. Recording it twice is ignored. */
+    public void recordSession(WorkoutSession session) {
+        Tracker t = new Tracker(this);
+        if (!session.addListener(t)) return;
+        LocalDate date = session.getStart().toLocalDate();
+        synchronized (this) {
+            for (Map.Entry<Exercise, List<SetEntry>> e : session.getSets().entrySet()) {
+                Entry entry = entry(e.getKey().getNameId(), e.getKey().getName());
+                for (SetEntry s : e.getValue()) {
+                    entry.add(date, s.getReps(), s.getWeight());
+                }
+            }
+        }
+    }
+
+    /** Adds loaded history without following it (it does not change). */
+    public synchronized void addHistory(HistoryLoader.History history) {
+        for (Map.Entry<LocalDate, List<WorkoutSession>> day : history.sessionsByDay.entrySet()) {
+            for (WorkoutSession session : day.getValue()) {
+                for (Map.Entry<Exercise, List<SetEntry>> e : session.getSets().entrySet()) {
+                    Entry entry = entry(e.getKey().getNameId(), e.getKey().getName());
+                    for (SetEntry s : e.getValue()) {
+                        entry.add(day.getKey(), s.getReps(), s.getWeight());
+                    }
+                }
+            }
+        }
+    }
+
+    /** Adds a SessionColumnStore read straight from its columns, no SetEntry objects. */
+    public synchronized void addColumns(SessionColumnStore.Columns c) {
+        // file dictionary id -> entry, looked up once per distinct name rather than per row
+        Entry[] entries = new Entry[c.strings.size()];
+        for (int session = 0; session < c.sessionCount; session++) {
+            LocalDate date = c.sessionStartTime(session).toLocalDate();
+            for (int row = c.sessionFirstRow[session]; row < c.sessionRowEnd(session); row++) {
+                int ex = c.exercise[row];
+                if (entries[ex] == null) {
+                    String name = c.strings.get(ex);
+                    entries[ex] = entry(Registry.EXERCISES.nameIdFor(name), name);
+                }
+                entries[ex].add(date, c.reps[row], c.weight[row]);
+            }
+        }
+    }
+
+    /** One set, e.g. from an import. */
+    public synchronized void addSet(Exercise exercise, LocalDate date, SetEntry set) {
+        entry(exercise.getNameId(), exercise.getName()).add(date, set.getReps(), set.getWeight());
+    }
+
+    // ===== Queries =====
+
+    /** Records and totals for the exercise, or null if it was never done. */
+    public synchronized Stats stats(String exercise) {
+        Entry e = find(Registry.EXERCISES.nameIdOf(exercise));
+        return e == null ? null : new Stats(e.stats);
+    }
+
+    /**
+     * Volume of each of the `weeks` weeks up to and including the week of
+     * `end`, oldest first. Weeks without sets are 0.
+     */
+    public synchronized double[] weeklyVolume(String exercise, LocalDate end, int weeks) {
+        double[] out = new double[weeks];
+        Entry e = find(Registry.EXERCISES.nameIdOf(exercise));
+        if (e == null) return out;
+        long last = weekOf(end);
+        for (int i = 0; i < weeks; i++) {
+            out[i] = e.volumeInWeek(last - weeks + 1 + i);
+        }
+        return out;
+    }
+
+    /** Total volume over the `weeks` weeks up to and including the week of `end`. */
+    public synchronized double rollingVolume(String exercise, LocalDate end, int weeks) {
+        double sum = 0;
+        for (double v : weeklyVolume(exercise, end, weeks)) sum += v;
+        return sum;
+    }
+
+    public synchronized int exerciseCount() {
+        return exercises;
+    }
+
+    /** Estimated one-rep max of a set, 0 if it does not qualify. */
+    public static double estimate1RM(int reps, double weight) {
+        if (reps <= 0 || reps > MAX_REPS_FOR_1RM || weight <= 0) return 0;
+        return reps == 1 ? weight : weight * (1 + reps / 30.0);
+    }
+
+    // ===== Internals =====
+
+    private Entry entry(int id, String name) {
+        if (id >= byId.length) byId = Arrays.copyOf(byId, Math.max(id + 1, byId.length * 2));
+        Entry e = byId[id];
+        if (e == null) {
+            e = new Entry(name);
+            byId[id] = e;
+            exercises++;
+        }
+        return e;
+    }
+
+    private Entry find(int id) {
+        return id >= 0 && id < byId.length ? byId[id] : null;
+    }
+
+    /** Week number with weeks starting on Monday (epoch day 0 was a Thursday). */
+    private static long weekOf(LocalDate date) {
+        return Math.floorDiv(date.toEpochDay() + 3, 7);
+    }
+
+    private static final class Entry {
+        final Stats stats;
+        // volume per week; slot i is week firstWeek + i
+        double[] weekly = new double[0];
+        long firstWeek;
+
+        Entry(String name) {
+            stats = new Stats(name);
+        }
+
+        void add(LocalDate date, int reps, double weight) {
+            Stats s = stats;
+            s.totalSets++;
+            s.totalReps += Math.max(reps, 0);
+            double volume = reps > 0 && weight > 0 ? reps * weight : 0;
+            s.totalVolume += volume;
+
+            double orm = estimate1RM(reps, weight);
+            if (orm > s.best1RM) {
+                s.best1RM = orm;
+                s.best1RMDate = date;
+            }
+            if (weight > 0 && (weight > s.topSetWeight || (weight == s.topSetWeight && reps > s.topSetReps))) {
+                s.topSetWeight = weight;
+                s.topSetReps = reps;
+                s.topSetDate = date;
+            }
+            if (volume > 0) {
+                addWeekly(weekOf(date), volume);
+            }
+        }
+
+        private void addWeekly(long week, double volume) {
+            if (weekly.length == 0) {
+                weekly = new double[8];
+                firstWeek = week;
+            } else if (week < firstWeek) {
+                // back-dated: grow at the front
+                int shift = (int) (firstWeek - week);
+                double[] grown = new double[weekly.length + shift];
+                System.arraycopy(weekly, 0, grown, shift, weekly.length);
+                weekly = grown;
+                firstWeek = week;
+            }
+            int i = (int) (week - firstWeek);
+            if (i >= weekly.length) {
+                weekly = Arrays.copyOf(weekly, Math.max(i + 1, weekly.length * 2));
+            }
+            weekly[i] += volume;
+        }
+
+        double volumeInWeek(long week) {
+            long i = week - firstWeek;
+            return i >= 0 && i < weekly.length ? weekly[(int) i] : 0;
+        }
+    }
+
+    /** Follows one session; equal per index so a session is only followed once. */
+    private static final class Tracker implements WorkoutSession.Listener {
+        final ExerciseStatsIndex index;
+
+        Tracker(ExerciseStatsIndex index) {
+            this.index = index;
+        }
+
+        @Override
+        public void setAdded(WorkoutSession session, Exercise exercise, SetEntry set, double calories) {
+            index.addSet(exercise, session.getStart().toLocalDate(), set);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Tracker && ((Tracker) o).index == index;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(index);
+        }
+    }
+}
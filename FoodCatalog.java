@@ -1,8 +1,42 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 
 public class FoodCatalog {
-    private final List<FoodItem> items = new ArrayList<>();
+    private static final int BINARY_MAGIC = 0x46434232;    // "FCB2": length-prefixed UTF-8 names, double values
+    private static final int BINARY_MAGIC_V1 = 0x46434231; // "FCB1": writeUTF names, float values (read only)
+
+    private final List<FoodItem> items = new ArrayList<>(); // guarded by this
+    private volatile int count; // items.size(), readable without the lock
+    // Search state; replaced as a whole. Built on first search, then rebuilt in the
+    // background after adds while searches go on against the previous one.
+    private volatile Indexed indexed;
+    private boolean rebuilding; // guarded by this
+    private volatile NutritionTable nutrition; // built on first use, foods appended on add
+
+    /**
+     * The main index over items [0, main.size()), plus a small one over the
+     * foods added since it was built, items [main.size(), covered).
+     */
+    private static final class Indexed {
+        final FoodSearchIndex main;
+        final FoodSearchIndex tail; // null when nothing was added since main
+        final int covered;
+
+        Indexed(FoodSearchIndex main, FoodSearchIndex tail, int covered) {
+            this.main = main;
+            this.tail = tail;
+            this.covered = covered;
+        }
+    }
 
     public FoodCatalog() {
         // per 100g: calories, protein, carbs, fat
@@ -16,7 +50,209 @@ public class FoodCatalog {
         items.add(new FoodItem("Broccoli",            34, 2.8, 7,  0.4));
         items.add(new FoodItem("Peanut Butter",      588, 25, 20, 50));
         items.add(new FoodItem("Greek Yogurt (plain)", 59, 10, 3.6, 0.4));
+        count = items.size();
+    }
+
+    /** Catalog with exactly these items (no built-in ones). */
+    public FoodCatalog(List<FoodItem> items) {
+        this.items.addAll(items);
+        count = this.items.size();
+    }
+
+    /** A copy of the foods, in the order they were added. */
+    public synchronized List<FoodItem> all() { return new ArrayList<>(items); }
+
+    public int size() { return count; }
+
+    /**
+     * Adds a food. The search index is not rebuilt here: the next search indexes
+     * the foods added since the last build on their own (cheap, there are few)
+     * and a background rebuild folds them into the main index.
+     */
+    public synchronized void add(FoodItem item) {
+        items.add(item);
+        count = items.size();
+        NutritionTable t = nutrition;
+        if (t != null) t.add(item);
+    }
+
+    /**
+     * Type-ahead search: up to k foods whose name has a word starting with query, then fuzzy matches.
+     * Until the background rebuild, foods added since the last build come after the indexed
+     * matches of the same kind (exact or fuzzy).
+     */
+    public List<FoodItem> search(String query, int k) {
+        Indexed s = indexed();
+        if (s.tail == null) return s.main.search(query, k);
+        // exact matches of both parts before any corrected or partial ones
+        List<FoodItem> out = s.main.searchExact(query, k);
+        addNew(out, s.tail.searchExact(query, k), k);
+        if (out.size() < k) addNew(out, s.main.search(query, k), k);
+        if (out.size() < k) addNew(out, s.tail.search(query, k), k);
+        return out;
+    }
+
+    private static void addNew(List<FoodItem> out, List<FoodItem> more, int k) {
+        for (FoodItem fi : more) {
+            if (out.size() >= k) return;
+            if (!out.contains(fi)) out.add(fi);
+        }
+    }
+
+    /**
+     * The main search index, built on first use (a second or two for a few hundred
+     * thousand foods). Foods added since its last build are not in it; search() covers them.
+     */
+    public FoodSearchIndex searchIndex() {
+        return indexed().main;
+    }
+
+    private Indexed indexed() {
+        Indexed s = indexed;
+        if (s != null && s.covered == count) return s;
+        synchronized (this) {
+            s = indexed;
+            int n = items.size();
+            if (s == null) {
+                s = new Indexed(new FoodSearchIndex(new ArrayList<>(items)), null, n);
+            } else if (s.covered < n) {
+                List<FoodItem> added = new ArrayList<>(items.subList(s.main.size(), n));
+                s = new Indexed(s.main, new FoodSearchIndex(added), n);
+                startRebuild();
+            }
+            indexed = s;
+            return s;
+        }
+    }
+
+    // caller holds the lock
+    private void startRebuild() {
+        if (rebuilding) return;
+        rebuilding = true;
+        Thread t = new Thread(this::rebuild, "food-index-rebuild");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /** Rebuilds the main index until it covers every food; searches keep using the old one meanwhile. */
+    private void rebuild() {
+        try {
+            while (true) {
+                List<FoodItem> snapshot;
+                synchronized (this) {
+                    snapshot = new ArrayList<>(items);
+                }
+                FoodSearchIndex main = new FoodSearchIndex(snapshot);
+                synchronized (this) {
+                    // foods added during the build get a new tail on the next search
+                    indexed = new Indexed(main, null, snapshot.size());
+                    if (items.size() == snapshot.size()) {
+                        rebuilding = false;
+                        return;
+                    }
+                }
+            }
+        } catch (RuntimeException | Error e) {
+            synchronized (this) {
+                rebuilding = false; // the next search after an add tries again
+            }
+            throw e;
+        }
     }
 
-    public List<FoodItem> all() { return items; }
+    /** Struct-of-arrays nutrition values of the catalog, for batch macro totals. */
+    public NutritionTable nutritionTable() {
+        NutritionTable t = nutrition;
+        if (t == null) {
+            synchronized (this) {
+                t = nutrition;
+                if (t == null) {
+                    t = new NutritionTable(items);
+                    nutrition = t;
+                }
+            }
+        }
+        return t;
+    }
+
+    // ===== Import / export =====
+
+    /**
+     * Reads a nutrition CSV: name,caloriesPer100g,proteinPer100g,carbsPer100g,fatPer100g
+     * with an optional header line. Rows that do not parse are skipped and counted.
+     */
+    public static FoodCatalog loadCsv(Path file) throws IOException {
+        List<FoodItem> foods = new ArrayList<>();
+        int bad = 0;
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            boolean first = true;
+            while ((line = in.readLine()) != null) {
+                if (line.isBlank()) continue;
+                List<String> f = Csv.split(line);
+                try {
+                    if (f.size() < 5) throw new NumberFormatException("expected 5 columns");
+                    foods.add(new FoodItem(f.get(0).trim(),
+                            Double.parseDouble(f.get(1).trim()), Double.parseDouble(f.get(2).trim()),
+                            Double.parseDouble(f.get(3).trim()), Double.parseDouble(f.get(4).trim())));
+                } catch (NumberFormatException e) {
+                    if (!first) bad++; // a header row is expected not to parse
+                }
+                first = false;
+            }
+        }
+        if (bad > 0) {
+            System.err.println("Skipped " + bad + " bad food rows in " + file);
+        }
+        return new FoodCatalog(foods);
+    }
+
+    /**
+     * Writes the catalog in the compact binary form read by loadBinary. Values are
+     * kept as doubles, so a catalog loads the same from the binary as from the CSV.
+     */
+    public void saveBinary(Path file) throws IOException {
+        List<FoodItem> foods = all();
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            out.writeInt(BINARY_MAGIC);
+            out.writeInt(foods.size());
+            for (FoodItem fi : foods) {
+                byte[] name = fi.getName().getBytes(StandardCharsets.UTF_8); // writeUTF stops at 64 KB
+                out.writeInt(name.length);
+                out.write(name);
+                out.writeDouble(fi.getCaloriesPer100g());
+                out.writeDouble(fi.getProteinPer100g());
+                out.writeDouble(fi.getCarbsPer100g());
+                out.writeDouble(fi.getFatPer100g());
+            }
+        }
+    }
+
+    /** Reads a file written by saveBinary; several times faster than parsing the CSV. */
+    public static FoodCatalog loadBinary(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            int magic = in.readInt();
+            if (magic != BINARY_MAGIC && magic != BINARY_MAGIC_V1) {
+                throw new IOException("Not a food catalog file: " + file);
+            }
+            int n = in.readInt();
+            List<FoodItem> foods = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                if (magic == BINARY_MAGIC_V1) {
+                    foods.add(new FoodItem(in.readUTF(),
+                            in.readFloat(), in.readFloat(), in.readFloat(), in.readFloat()));
+                    continue;
+                }
+                int len = in.readInt();
+                if (len < 0) throw new IOException("Corrupt food catalog file: " + file);
+                byte[] name = new byte[len];
+                in.readFully(name);
+                foods.add(new FoodItem(new String(name, StandardCharsets.UTF_8),
+                        in.readDouble(), in.readDouble(), in.readDouble(), in.readDouble()));
+            }
+            return new FoodCatalog(foods);
+        }
+    }
 }
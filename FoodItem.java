@@ -1,7 +1,8 @@
-import java.util.UUID;
-
 public class FoodItem {
-    private final UUID id = UUID.randomUUID();
+    // Dense id (0, 1, 2, ...) from Registry, one per name and set of values, so
+    // foods can key primitive maps and arrays. Items are the same food only when
+    // the values match too, so a slot's values never depend on which came first.
+    private final int index;
     private final String name;
     private final double caloriesPer100g;
     private final double proteinPer100g;
@@ -10,6 +11,8 @@ public class FoodItem {
 
     public FoodItem(String name, double caloriesPer100g, double proteinPer100g,
                     double carbsPer100g, double fatPer100g) {
+        this.index = Registry.FOODS.idFor(name, caloriesPer100g + "/" + proteinPer100g
+                + "/" + carbsPer100g + "/" + fatPer100g);
         this.name = name;
         this.caloriesPer100g = caloriesPer100g;
         this.proteinPer100g = proteinPer100g;
@@ -17,11 +20,14 @@ public class FoodItem {
         this.fatPer100g = fatPer100g;
     }
 
+    public int getIndex() { return index; }
     public String getName() { return name; }
     public double getCaloriesPer100g() { return caloriesPer100g; }
     public double getProteinPer100g() { return proteinPer100g; }
     public double getCarbsPer100g() { return carbsPer100g; }
     public double getFatPer100g() { return fatPer100g; }
 
+    @Override public boolean equals(Object o) { return o instanceof FoodItem && ((FoodItem) o).index == index; }
+    @Override public int hashCode() { return index; }
     @Override public String toString() { return name; }
 }
@@ -0,0 +1,148 @@
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Builds a synthetic catalog of 500k foods ("Organic Smoked Chicken Breast
+ * 412" style names), times CSV and binary import, index build, and then
+ * type-ahead search latency (p50/p99/max) for prefix queries, multi-word
+ * queries and queries with typos.
+ * Plain main() harness; there is no JMH setup in this tree.
+ *
+ * Run: java FoodSearchBenchmark [items] [k]
+ */
+public class FoodSearchBenchmark {
+    private static final String[] BRANDS = {
+        "", "", "", "Organic", "Homestyle", "Farm Fresh", "Value", "Premium", "Lite", "Classic",
+        "Nature's Best", "Golden Valley", "Crème de la Crème", "Sunny Acres"
+    };
+    private static final String[] PREP = {
+        "", "", "Raw", "Grilled", "Roasted", "Boiled", "Fried", "Smoked", "Steamed", "Baked",
+        "Dried", "Canned", "Frozen", "Pickled", "Whole", "Sliced", "Low Fat", "Unsweetened"
+    };
+    private static final String[] BASE = {
+        "Chicken Breast", "Chicken Thigh", "Turkey", "Beef Mince", "Pork Loin", "Salmon", "Tuna",
+        "Cod", "Shrimp", "Egg", "Tofu", "Tempeh", "Lentils", "Chickpeas", "Black Beans", "Rice",
+        "Brown Rice", "Quinoa", "Oats", "Pasta", "Bread", "Bagel", "Tortilla", "Potato",
+        "Sweet Potato", "Broccoli", "Spinach", "Kale", "Carrot", "Tomato", "Cucumber", "Pepper",
+        "Apple", "Banana", "Orange", "Strawberries", "Blueberries", "Mango", "Pineapple", "Grapes",
+        "Milk", "Greek Yogurt", "Cheddar", "Mozzarella", "Cottage Cheese", "Butter", "Olive Oil",
+        "Peanut Butter", "Almonds", "Walnuts", "Cashews", "Granola", "Protein Bar", "Hummus",
+        "Avocado", "Mushrooms", "Zucchini", "Cauliflower", "Edamame", "Jalapeño"
+    };
+
+    public static void main(String[] args) throws IOException {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        int k = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        Random rnd = new Random(7);
+
+        Path csv = Files.createTempFile("foods", ".csv");
+        Path bin = Files.createTempFile("foods", ".bin");
+        try {
+            try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(csv, StandardCharsets.UTF_8))) {
+                out.println("name,caloriesPer100g,proteinPer100g,carbsPer100g,fatPer100g");
+                for (int i = 0; i < n; i++) {
+                    out.printf(Locale.ROOT, "\"%s\",%.1f,%.1f,%.1f,%.1f%n", syntheticName(rnd, i).replace("\"", "\"\""),
+                            rnd.nextDouble() * 600, rnd.nextDouble() * 40, rnd.nextDouble() * 80, rnd.nextDouble() * 50);
+                }
+            }
+
+            long t0 = System.nanoTime();
+            FoodCatalog catalog = FoodCatalog.loadCsv(csv);
+            long t1 = System.nanoTime();
+            catalog.saveBinary(bin);
+            long t2 = System.nanoTime();
+            FoodCatalog fromBinary = FoodCatalog.loadBinary(bin);
+            long t3 = System.nanoTime();
+            FoodSearchIndex index = catalog.searchIndex();
+            long t4 = System.nanoTime();
+            System.out.printf("items=%,d  csv import %d ms (%,d KB)  binary save %d ms  binary import %d ms (%,d KB)  index build %d ms%n",
+                    catalog.size(), (t1 - t0) / 1_000_000, Files.size(csv) / 1024, (t2 - t1) / 1_000_000,
+                    (t3 - t2) / 1_000_000, Files.size(bin) / 1024, (t4 - t3) / 1_000_000);
+            if (fromBinary.size() != catalog.size()) {
+                System.out.println("Binary round trip lost items!");
+                System.exit(1);
+            }
+            List<FoodItem> original = catalog.all();
+            List<FoodItem> reloaded = fromBinary.all();
+            for (int i = 0; i < original.size(); i++) {
+                // same name and values, hence the same food (see Registry)
+                if (!reloaded.get(i).equals(original.get(i))) {
+                    System.out.println("Binary round trip changed " + original.get(i) + "!");
+                    System.exit(1);
+                }
+            }
+
+            String[] samples = {"chi", "chicken br", "grilled sal", "oat", "pean", "crem", "jalapeno",
+                                "chiken brest", "bluberies", "mozarela", "swet potato", "zuchini"};
+            for (String q : samples) {
+                System.out.printf("  %-14s -> %s%n", q, index.search(q, 3));
+            }
+
+            List<String> queries = new ArrayList<>();
+            for (int i = 0; i < 20_000; i++) {
+                String name = FoodSearchIndex.normalize(syntheticName(rnd, rnd.nextInt(n)));
+                int cut = 1 + rnd.nextInt(Math.max(1, name.length() - 1));
+                String q = name.substring(0, cut);
+                if (rnd.nextInt(4) == 0 && q.length() > 3) { // drop a letter
+                    int d = rnd.nextInt(q.length());
+                    q = q.substring(0, d) + q.substring(d + 1);
+                }
+                queries.add(q);
+            }
+
+            for (int round = 0; round < 3; round++) {
+                long[] nanos = new long[queries.size()];
+                int hits = 0;
+                for (int i = 0; i < queries.size(); i++) {
+                    long s = System.nanoTime();
+                    hits += index.search(queries.get(i), k).size();
+                    nanos[i] = System.nanoTime() - s;
+                }
+                Arrays.sort(nanos);
+                System.out.printf("round %d  %,d queries  top-%d  p50=%.1f us  p99=%.1f us  max=%.1f us  avg hits=%.1f%n",
+                        round, nanos.length, k, nanos[nanos.length / 2] / 1e3, nanos[nanos.length * 99 / 100] / 1e3,
+                        nanos[nanos.length - 1] / 1e3, hits / (double) nanos.length);
+            }
+
+            // foods added between type-ahead searches: each search must stay fast and find the new food
+            int adds = 1_000;
+            long[] nanos = new long[adds];
+            for (int i = 0; i < adds; i++) {
+                FoodItem added = new FoodItem("Zesty Custom Snack " + i, 250, 5, 30, 10);
+                catalog.add(added);
+                long s = System.nanoTime();
+                List<FoodItem> found = catalog.search("zesty custom snack " + i, 1);
+                nanos[i] = System.nanoTime() - s;
+                if (found.isEmpty() || !found.get(0).equals(added)) {
+                    System.out.println("Search after add missed " + added + "!");
+                    System.exit(1);
+                }
+            }
+            Arrays.sort(nanos);
+            System.out.printf("add+search  %,d pairs  search p50=%.1f us  p99=%.1f us  max=%.1f ms%n",
+                    adds, nanos[adds / 2] / 1e3, nanos[adds * 99 / 100] / 1e3, nanos[adds - 1] / 1e6);
+        } finally {
+            Files.deleteIfExists(csv);
+            Files.deleteIfExists(bin);
+        }
+    }
+
+    private static String syntheticName(Random rnd, int i) {
+        StringBuilder sb = new StringBuilder();
+        String brand = BRANDS[rnd.nextInt(BRANDS.length)];
+        String prep = PREP[rnd.nextInt(PREP.length)];
+        if (!brand.isEmpty()) sb.append(brand).append(' ');
+        if (!prep.isEmpty()) sb.append(prep).append(' ');
+        sb.append(BASE[rnd.nextInt(BASE.length)]);
+        sb.append(' ').append(i % 1000); // variants, so names are not all duplicates
+        return sb.toString();
+    }
+}
@@ -0,0 +1,367 @@
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Type-ahead search over a fixed list of foods.
+ *
+ * Names are normalized (lower case, accents stripped, punctuation as spaces)
+ * and split into words. Every distinct word gets an id equal to its rank in
+ * sorted order, so comparing two names word id by word id gives the same
+ * order as comparing their text.
+ *
+ *  - Prefix index: every word position of every name, sorted by the word ids
+ *    from there to the end of the name ("grilled chicken breast",
+ *    "chicken breast", "breast"). A query like "chicken br" is a range of that
+ *    array, found with two binary searches; the first k entries of the range
+ *    are the alphabetically first matches.
+ *  - Fuzzy: a trigram index over the distinct words only. A query word that
+ *    is not in the vocabulary ("chiken") is replaced by the closest word
+ *    ("chicken") and the prefix search is repeated. The vocabulary is tiny
+ *    next to the catalog (thousands of words for hundreds of thousands of
+ *    foods), so this stays in the microseconds too.
+ *
+ * Immutable once built; search from any thread.
+ */
+public class FoodSearchIndex {
+
+    // Trigram alphabet: space, a-z, 0-9, anything else
+    private static final int SYMBOLS = 38;
+    private static final int TRIGRAMS = SYMBOLS * SYMBOLS * SYMBOLS;
+    // A corrected word must share at least this much with the typed one (Dice coefficient)
+    private static final double MIN_SIMILARITY = 0.4;
+
+    private final List<FoodItem> items;
+    private final String[] words;           // distinct words, sorted; id = index
+    private final int[] tokens;             // word ids of all names, back to back
+    private final int[] nameStart;          // item -> first token, n + 1 entries
+    private final int[] tokenItem;          // token position -> item
+    private final int[] suffixes;           // token positions, sorted by word ids up to the end of the name
+    private final int[] trigramStart;       // trigram -> start in wordTrigrams, TRIGRAMS + 1 entries
+    private final int[] wordTrigrams;       // word ids, ascending within one trigram
+    private final short[] wordTrigramCount; // distinct trigrams per word
+
+    public FoodSearchIndex(List<FoodItem> items) {
+        this.items = new ArrayList<>(items);
+        int n = this.items.size();
+
+        // words -> provisional ids in order of appearance
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> seen = new ArrayList<>();
+        int[] tok = new int[Math.max(16, n * 4)];
+        int tokCount = 0;
+        nameStart = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            nameStart[i] = tokCount;
+            String s = normalize(this.items.get(i).getName());
+            if (s.isEmpty()) continue;
+            for (String w : s.split(" ")) {
+                Integer id = ids.get(w);
+                if (id == null) {
+                    id = seen.size();
+                    ids.put(w, id);
+                    seen.add(w);
+                }
+                if (tokCount == tok.length) tok = Arrays.copyOf(tok, tokCount * 2);
+                tok[tokCount++] = id;
+            }
+        }
+        nameStart[n] = tokCount;
+
+        // renumber so that id order is text order
+        words = seen.toArray(new String[0]);
+        Arrays.sort(words);
+        int[] rank = new int[words.length];
+        for (int r = 0; r < words.length; r++) rank[ids.get(words[r])] = r;
+        tokens = Arrays.copyOf(tok, tokCount);
+        for (int p = 0; p < tokCount; p++) tokens[p] = rank[tokens[p]];
+
+        tokenItem = new int[tokCount];
+        for (int i = 0; i < n; i++) {
+            Arrays.fill(tokenItem, nameStart[i], nameStart[i + 1], i);
+        }
+        suffixes = sortSuffixes();
+
+        // trigram postings over the vocabulary: count, prefix-sum, fill
+        int[] start = new int[TRIGRAMS + 1];
+        int[] codes = new int[64];
+        wordTrigramCount = new short[words.length];
+        for (int w = 0; w < words.length; w++) {
+            codes = trigrams(words[w], true, codes);
+            wordTrigramCount[w] = (short) Math.min(codes[0], Short.MAX_VALUE);
+            for (int j = 1; j <= codes[0]; j++) start[codes[j] + 1]++;
+        }
+        for (int t = 0; t < TRIGRAMS; t++) start[t + 1] += start[t];
+        int[] fill = Arrays.copyOf(start, TRIGRAMS);
+        int[] post = new int[start[TRIGRAMS]];
+        for (int w = 0; w < words.length; w++) {
+            codes = trigrams(words[w], true, codes);
+            for (int j = 1; j <= codes[0]; j++) post[fill[codes[j]]++] = w;
+        }
+        trigramStart = start;
+        wordTrigrams = post;
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    /** Number of distinct words over all names. */
+    public int vocabularySize() {
+        return words.length;
+    }
+
+    /**
+     * Up to k foods for a type-ahead query, the last query word being treated
+     * as a prefix. Exact matches come first (alphabetical); misspelt words are
+     * then corrected to the closest known word, and if that is still short of
+     * k, leading words are dropped one at a time.
+     */
+    public List<FoodItem> search(String query, int k) {
+        return search(query, k, true);
+    }
+
+    /** Only the exact matches of search(): no spelling correction, no dropped words. */
+    List<FoodItem> searchExact(String query, int k) {
+        return search(query, k, false);
+    }
+
+    private List<FoodItem> search(String query, int k, boolean fuzzy) {
+        List<FoodItem> out = new ArrayList<>(Math.max(0, k));
+        String q = normalize(query);
+        if (k <= 0 || q.isEmpty()) return out;
+        String[] typed = q.split(" ");
+        int[] chosen = new int[k];
+
+        int found = collect(typed, chosen, 0, k);
+        if (found < k && fuzzy) {
+            String[] fixed = typed.clone();
+            boolean changed = false;
+            for (int i = 0; i < fixed.length; i++) {
+                boolean last = i == fixed.length - 1;
+                if (last ? hasPrefix(fixed[i]) : Arrays.binarySearch(words, fixed[i]) >= 0) continue;
+                // a finished-looking last word ("brest") is better matched whole
+                String c = closestWord(fixed[i], false);
+                if (c == null && last) c = closestWord(fixed[i], true);
+                if (c == null) continue;
+                fixed[i] = c;
+                changed = true;
+            }
+            if (changed) found = collect(fixed, chosen, found, k);
+            for (int drop = 1; drop < fixed.length && found < k; drop++) {
+                found = collect(Arrays.copyOfRange(fixed, drop, fixed.length), chosen, found, k);
+            }
+        }
+        for (int i = 0; i < found; i++) out.add(items.get(chosen[i]));
+        return out;
+    }
+
+    /** Lower case, accents removed, runs of anything but letters/digits turned into one space. */
+    static String normalize(String s) {
+        if (s == null) return "";
+        String folded = s;
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) > 0x7F) {
+                folded = Normalizer.normalize(s, Normalizer.Form.NFD);
+                break;
+            }
+        }
+        StringBuilder sb = new StringBuilder(folded.length());
+        boolean space = true;
+        for (int i = 0; i < folded.length(); i++) {
+            char c = folded.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) continue;
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(Character.toLowerCase(c));
+                space = false;
+            } else if (!space) {
+                sb.append(' ');
+                space = true;
+            }
+        }
+        int len = sb.length();
+        if (len > 0 && sb.charAt(len - 1) == ' ') sb.setLength(len - 1);
+        return sb.toString();
+    }
+
+    // ===== Prefix search =====
+
+    /**
+     * Adds items whose name contains the words of q in a row (last one as a
+     * prefix) to chosen[found..k), skipping items already there. Returns the
+     * new count.
+     */
+    private int collect(String[] q, int[] chosen, int found, int k) {
+        int m = q.length - 1;
+        int[] exact = new int[m];
+        for (int i = 0; i < m; i++) {
+            exact[i] = Arrays.binarySearch(words, q[i]);
+            if (exact[i] < 0) return found;
+        }
+        int lo = lowerBound(words, q[m]);
+        int hi = lowerBound(words, q[m] + Character.MAX_VALUE);
+        if (lo == hi) return found;
+
+        int from = lowerBound(exact, lo);
+        int to = lowerBound(exact, hi);
+        for (int p = from; p < to && found < k; p++) {
+            int item = tokenItem[suffixes[p]];
+            boolean dup = false;
+            for (int i = 0; i < found; i++) {
+                if (chosen[i] == item) { dup = true; break; }
+            }
+            if (!dup) chosen[found++] = item;
+        }
+        return found;
+    }
+
+    /** First suffix whose word ids are >= exact followed by next. */
+    private int lowerBound(int[] exact, int next) {
+        int lo = 0;
+        int hi = suffixes.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compareToKey(suffixes[mid], exact, next) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private int compareToKey(int pos, int[] exact, int next) {
+        int end = nameStart[tokenItem[pos] + 1];
+        for (int i = 0; i <= exact.length; i++) {
+            int a = pos + i < end ? tokens[pos + i] : -1;
+            int b = i < exact.length ? exact[i] : next;
+            if (a != b) return a < b ? -1 : 1;
+        }
+        return 0;
+    }
+
+    private boolean hasPrefix(String prefix) {
+        int i = lowerBound(words, prefix);
+        return i < words.length && words[i].startsWith(prefix);
+    }
+
+    private static int lowerBound(String[] sorted, String key) {
+        int i = Arrays.binarySearch(sorted, key);
+        return i >= 0 ? i : -i - 1;
+    }
+
+    // ===== Fuzzy word correction =====
+
+    /**
+     * The known word closest to w by trigram similarity, or null. A prefix
+     * (the word still being typed) is scored by how much of it a word covers,
+     * so "chik" can still become "chicken".
+     */
+    private String closestWord(String w, boolean prefix) {
+        int[] codes = trigrams(w, !prefix, new int[w.length() + 2]);
+        int q = codes[0];
+        if (q == 0) return null;
+        int[] hits = new int[words.length];
+        int best = -1;
+        double bestScore = 0;
+        double bestDice = 0;
+        for (int j = 1; j <= q; j++) {
+            int t = codes[j];
+            for (int p = trigramStart[t]; p < trigramStart[t + 1]; p++) {
+                int word = wordTrigrams[p];
+                int h = ++hits[word];
+                double dice = 2.0 * h / (q + wordTrigramCount[word]);
+                double score = prefix ? h / (double) q : dice;
+                if (score > bestScore || (score == bestScore && dice > bestDice)) {
+                    best = word;
+                    bestScore = score;
+                    bestDice = dice;
+                }
+            }
+        }
+        double threshold = prefix ? 0.5 : MIN_SIMILARITY;
+        return best >= 0 && bestScore >= threshold ? words[best] : null;
+    }
+
+    /**
+     * Distinct trigram codes of " " + s (+ " " if padEnd) into codes[1..];
+     * codes[0] holds the count. Returns codes, grown if needed.
+     */
+    private static int[] trigrams(String s, boolean padEnd, int[] codes) {
+        int len = s.length() + (padEnd ? 2 : 1);
+        if (codes.length < len) codes = new int[len * 2];
+        int count = 0;
+        int a = 0;
+        int b = s.isEmpty() ? 0 : symbol(s.charAt(0));
+        for (int i = 2; i < len; i++) {
+            int c = i - 1 < s.length() ? symbol(s.charAt(i - 1)) : 0;
+            int code = (a * SYMBOLS + b) * SYMBOLS + c;
+            boolean dup = false;
+            for (int j = 1; j <= count; j++) {
+                if (codes[j] == code) { dup = true; break; }
+            }
+            if (!dup) codes[++count] = code;
+            a = b;
+            b = c;
+        }
+        codes[0] = count;
+        return codes;
+    }
+
+    private static int symbol(char c) {
+        if (c == ' ') return 0;
+        if (c >= 'a' && c <= 'z') return 1 + (c - 'a');
+        if (c >= '0' && c <= '9') return 27 + (c - '0');
+        return 37;
+    }
+
+    // ===== Building =====
+
+    /**
+     * All token positions sorted by their word ids up to the end of the name:
+     * a counting sort on the first word, then a bottom-up merge sort inside
+     * each bucket.
+     */
+    private int[] sortSuffixes() {
+        int[] start = new int[words.length + 1];
+        for (int t : tokens) start[t + 1]++;
+        for (int w = 0; w < words.length; w++) start[w + 1] += start[w];
+        int[] fill = Arrays.copyOf(start, words.length);
+        int[] a = new int[tokens.length];
+        for (int p = 0; p < tokens.length; p++) a[fill[tokens[p]]++] = p;
+
+        int[] tmp = new int[a.length];
+        for (int w = 0; w < words.length; w++) {
+            if (start[w + 1] - start[w] > 1) mergeSort(a, tmp, start[w], start[w + 1]);
+        }
+        return a;
+    }
+
+    private void mergeSort(int[] a, int[] tmp, int from, int to) {
+        for (int width = 1; width < to - from; width *= 2) {
+            for (int lo = from; lo < to - width; lo += 2 * width) {
+                int mid = lo + width;
+                int hi = Math.min(lo + 2 * width, to);
+                if (compareSuffixes(a[mid - 1], a[mid]) <= 0) continue; // already in order
+                int i = lo, j = mid, o = lo;
+                while (i < mid && j < hi) {
+                    tmp[o++] = compareSuffixes(a[i], a[j]) <= 0 ? a[i++] : a[j++];
+                }
+                while (i < mid) tmp[o++] = a[i++];
+                while (j < hi) tmp[o++] = a[j++];
+                System.arraycopy(tmp, lo, a, lo, hi - lo);
+            }
+        }
+    }
+
+    private int compareSuffixes(int x, int y) {
+        int xEnd = nameStart[tokenItem[x] + 1];
+        int yEnd = nameStart[tokenItem[y] + 1];
+        for (int i = 0; ; i++) {
+            int a = x + i < xEnd ? tokens[x + i] : -1;
+            int b = y + i < yEnd ? tokens[y + i] : -1;
+            if (a != b) return a < b ? -1 : 1;
+            if (a < 0) return Integer.compare(x, y); // same words: keep catalog order
+        }
+    }
+}
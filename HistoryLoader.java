@@ -0,0 +1,406 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Reads the session and meal CSV exports back into WorkoutSession and Meal
+ * objects, grouped by day.
+ *
+ * Each file is memory-mapped and cut into ~1 MB chunks at line boundaries.
+ * The chunks are parsed in parallel on the common fork-join pool, straight
+ * from the mapped bytes, and the rows are then stitched back together in
+ * file order. Months of history load in well under a second.
+ */
+public class HistoryLoader {
+
+    private static final int CHUNK_BYTES = 1 << 20;
+    private static final long MAP_WINDOW = 1L << 30; // a single mapping is limited to 2 GB
+
+    /** Everything loaded, keyed by day (oldest first). */
+    public static class History {
+        public final Map<LocalDate, List<WorkoutSession>> sessionsByDay = new TreeMap<>();
+        public final Map<LocalDate, List<Meal>> mealsByDay = new TreeMap<>();
+        public int sessionRows;
+        public int mealRows;
+        public int badRows;
+    }
+
+    /** Loads data/sessions-*.csv, sessions.csv and data/meals-*.csv relative to the working dir. */
+    public static History loadDefault() throws IOException {
+        List<Path> sessionFiles = list(Paths.get("data"), "sessions-*.csv");
+        Path legacy = Paths.get("sessions.csv");
+        if (Files.isRegularFile(legacy)) sessionFiles.add(0, legacy);
+        return load(sessionFiles, list(Paths.get("data"), "meals-*.csv"));
+    }
+
+    public static History load(List<Path> sessionFiles, List<Path> mealFiles) throws IOException {
+        History h = new History();
+        // Shared between files so the same exercise/food/workout name maps to one object.
+        // Exercises and foods are interned in Registry, so reloads reuse identical objects
+        // already in use; these maps only save building one per row.
+        Map<String, Exercise> exercises = new HashMap<>();
+        Map<String, Workout> workouts = new HashMap<>();
+        Map<String, FoodItem> foods = new HashMap<>();
+
+        List<ParsedChunk<SessionRow>> sessionChunks = parseAll(sessionFiles, true);
+        Map<String, WorkoutSession> sessions = new LinkedHashMap<>();
+        for (ParsedChunk<SessionRow> c : sessionChunks) {
+            h.badRows += c.bad;
+            WorkoutSession s = null;
+            SessionRow prev = null;
+            for (SessionRow r : c.rows) {
+                h.sessionRows++;
+                // rows of one session are contiguous, so only look it up when the session changes
+                String key = null;
+                if (prev == null || r.start != prev.start || r.title != prev.title) {
+                    key = r.title + '\u0000' + r.start;
+                    s = sessions.get(key);
+                }
+                prev = r;
+                if (s == null) {
+                    Workout w = workouts.computeIfAbsent(r.title,
+                            t -> new Workout(t, r.start.getDayOfWeek()));
+                    s = new WorkoutSession(w, r.start, r.end);
+                    sessions.put(key, s);
+                    h.sessionsByDay.computeIfAbsent(r.start.toLocalDate(), d -> new ArrayList<>()).add(s);
+                }
+                s.addSet(exercises.computeIfAbsent(r.exercise,
+                                n -> Registry.EXERCISES.intern(guessExercise(n, r))),
+                        new SetEntry(r.setNumber, r.reps, r.weight, r.durationSec));
+            }
+        }
+
+        List<ParsedChunk<MealRow>> mealChunks = parseAll(mealFiles, false);
+        Map<String, Meal> meals = new LinkedHashMap<>();
+        for (ParsedChunk<MealRow> c : mealChunks) {
+            h.badRows += c.bad;
+            for (MealRow r : c.rows) {
+                h.mealRows++;
+                String key = r.date + "\u0000" + r.meal;
+                Meal m = meals.get(key);
+                if (m == null) {
+                    m = new Meal(r.meal, r.date);
+                    meals.put(key, m);
+                    h.mealsByDay.computeIfAbsent(r.date, d -> new ArrayList<>()).add(m);
+                }
+                m.addFood(foods.computeIfAbsent(r.food,
+                        n -> Registry.FOODS.intern(r.toFoodItem())), r.grams);
+            }
+        }
+        return h;
+    }
+
+    // ===== file -> chunks -> rows =====
+
+    @SuppressWarnings("unchecked")
+    private static <T> List<ParsedChunk<T>> parseAll(List<Path> files, boolean sessions) throws IOException {
+        List<ByteBuffer> chunks = new ArrayList<>();
+        for (Path f : files) {
+            mapChunks(f, chunks);
+        }
+        // parallelStream runs on the common ForkJoinPool; collect() keeps chunk order
+        return chunks.parallelStream()
+                .map(b -> (ParsedChunk<T>) (sessions ? parseSessions(b) : parseMeals(b)))
+                .collect(Collectors.toList());
+    }
+
+    /** Maps the file and appends line-aligned slices of it to out. */
+    private static void mapChunks(Path file, List<ByteBuffer> out) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = ch.size();
+            long pos = 0;
+            while (pos < size) {
+                long len = Math.min(MAP_WINDOW, size - pos);
+                MappedByteBuffer window = ch.map(FileChannel.MapMode.READ_ONLY, pos, len);
+                int usable = (int) len;
+                if (pos + len < size) {
+                    // end this window on a line boundary; the rest goes to the next window
+                    while (usable > 0 && window.get(usable - 1) != '\n') usable--;
+                    if (usable == 0) throw new IOException("Line longer than 1 GB in " + file);
+                }
+                int start = 0;
+                while (start < usable) {
+                    int end = Math.min(usable, start + CHUNK_BYTES);
+                    while (end < usable && window.get(end - 1) != '\n') end++;
+                    out.add(window.slice(start, end - start));
+                    start = end;
+                }
+                pos += usable;
+            }
+        }
+        // the mappings stay valid after the channel is closed
+    }
+
+    private static ParsedChunk<SessionRow> parseSessions(ByteBuffer buf) {
+        ParsedChunk<SessionRow> chunk = new ParsedChunk<>();
+        LineReader in = new LineReader(buf);
+        // title/start/end/exercise repeat row after row, so reuse the last value when the bytes match
+        String title = null, lastStart = null, lastEnd = null, exercise = null;
+        LocalDateTime start = null, end = null;
+        while (in.nextLine()) {
+            if (in.startsWith("workoutTitle,") || in.fieldCount() == 0) continue; // header / blank
+            try {
+                if (in.fieldCount() < 8) throw new IllegalArgumentException();
+                SessionRow r = new SessionRow();
+                if (!in.fieldEquals(0, title)) title = in.text(0);
+                if (!in.fieldEquals(1, lastStart)) {
+                    lastStart = in.text(1);
+                    start = LocalDateTime.parse(lastStart);
+                }
+                if (!in.fieldEquals(2, lastEnd)) {
+                    lastEnd = in.text(2);
+                    end = LocalDateTime.parse(lastEnd);
+                }
+                if (!in.fieldEquals(3, exercise)) exercise = in.text(3);
+                r.title = title;
+                r.start = start;
+                r.end = end;
+                r.exercise = exercise;
+                r.setNumber = (int) in.integer(4);
+                r.reps = (int) in.integer(5);
+                r.weight = in.decimal(6);
+                r.durationSec = (int) in.integer(7);
+                chunk.rows.add(r);
+            } catch (RuntimeException ex) {
+                chunk.bad++;
+            }
+        }
+        return chunk;
+    }
+
+    private static ParsedChunk<MealRow> parseMeals(ByteBuffer buf) {
+        ParsedChunk<MealRow> chunk = new ParsedChunk<>();
+        LineReader in = new LineReader(buf);
+        String lastDate = null;
+        LocalDate date = null;
+        while (in.nextLine()) {
+            if (in.startsWith("date,") || in.fieldCount() == 0) continue;
+            try {
+                if (in.fieldCount() < 9) throw new IllegalArgumentException();
+                MealRow r = new MealRow();
+                String d = in.text(0);
+                if (!d.equals(lastDate)) { date = LocalDate.parse(d); lastDate = d; }
+                r.date = date;
+                r.meal = in.text(1);
+                r.food = in.text(2);
+                r.grams = in.decimal(3);
+                r.calPer100 = in.decimal(4);
+                r.protein = in.decimal(6);
+                r.carbs = in.decimal(7);
+                r.fat = in.decimal(8);
+                if (r.grams <= 0) throw new IllegalArgumentException();
+                chunk.rows.add(r);
+            } catch (RuntimeException ex) {
+                chunk.bad++;
+            }
+        }
+        return chunk;
+    }
+
+    /** The CSV has no exercise type; sets with no reps are taken to be cardio. */
+    private static Exercise guessExercise(String name, SessionRow first) {
+        if (first.reps == 0 && first.weight == 0) {
+            return new CardioExercise(name, "", "", 8.0);
+        }
+        return new StrengthExercise(name, "", "", first.weight > 0);
+    }
+
+    private static List<Path> list(Path dir, String glob) throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(dir)) return files;
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, glob)) {
+            for (Path p : ds) files.add(p);
+        }
+        Collections.sort(files); // dates in the names keep this chronological
+        return files;
+    }
+
+    // ===== row types =====
+
+    private static class ParsedChunk<T> {
+        final List<T> rows = new ArrayList<>();
+        int bad;
+    }
+
+    private static class SessionRow {
+        String title, exercise;
+        LocalDateTime start, end;
+        int setNumber, reps, durationSec;
+        double weight;
+    }
+
+    private static class MealRow {
+        LocalDate date;
+        String meal, food;
+        double grams, calPer100, protein, carbs, fat;
+
+        /** The export stores totals for the portion; scale back to per 100 g. */
+        FoodItem toFoodItem() {
+            double f = 100.0 / grams;
+            return new FoodItem(food, calPer100, protein * f, carbs * f, fat * f);
+        }
+    }
+
+    /**
+     * Walks a byte buffer line by line and splits each line into CSV fields in
+     * place (quoted fields with "" escapes supported). Numbers are parsed
+     * straight from the bytes; only text fields become Strings.
+     */
+    private static class LineReader {
+        private final ByteBuffer buf;
+        private int pos;
+        private int lineStart, lineEnd;
+        private int[] fieldStart = new int[16];
+        private int[] fieldEnd = new int[16];
+        private boolean[] fieldQuoted = new boolean[16];
+        private int fields;
+
+        LineReader(ByteBuffer buf) {
+            this.buf = buf;
+        }
+
+        boolean nextLine() {
+            int limit = buf.limit();
+            if (pos >= limit) return false;
+            lineStart = pos;
+            int i = pos;
+            while (i < limit && buf.get(i) != '\n') i++;
+            pos = i + 1;
+            lineEnd = (i > lineStart && buf.get(i - 1) == '\r') ? i - 1 : i;
+            split();
+            return true;
+        }
+
+        boolean startsWith(String ascii) {
+            if (lineEnd - lineStart < ascii.length()) return false;
+            for (int i = 0; i < ascii.length(); i++) {
+                if (buf.get(lineStart + i) != ascii.charAt(i)) return false;
+            }
+            return true;
+        }
+
+        int fieldCount() {
+            return fields;
+        }
+
+        private void split() {
+            fields = 0;
+            if (lineEnd == lineStart) return;
+            int i = lineStart;
+            while (true) {
+                if (fields == fieldStart.length) grow();
+                boolean quoted = i < lineEnd && buf.get(i) == '"';
+                if (quoted) {
+                    int s = ++i;
+                    while (i < lineEnd) {
+                        if (buf.get(i) == '"') {
+                            if (i + 1 < lineEnd && buf.get(i + 1) == '"') { i += 2; continue; }
+                            break;
+                        }
+                        i++;
+                    }
+                    fieldStart[fields] = s;
+                    fieldEnd[fields] = i;
+                    i++; // closing quote
+                    while (i < lineEnd && buf.get(i) != ',') i++;
+                } else {
+                    int s = i;
+                    while (i < lineEnd && buf.get(i) != ',') i++;
+                    fieldStart[fields] = s;
+                    fieldEnd[fields] = i;
+                }
+                fieldQuoted[fields] = quoted;
+                fields++;
+                if (i >= lineEnd) break;
+                i++; // comma
+            }
+        }
+
+        private void grow() {
+            int n = fieldStart.length * 2;
+            fieldStart = Arrays.copyOf(fieldStart, n);
+            fieldEnd = Arrays.copyOf(fieldEnd, n);
+            fieldQuoted = Arrays.copyOf(fieldQuoted, n);
+        }
+
+        /** True if field f holds exactly the (ASCII) text of s; cheap way to spot repeats. */
+        boolean fieldEquals(int f, String s) {
+            if (s == null || fieldQuoted[f] && s.indexOf('"') >= 0) return false;
+            int start = fieldStart[f];
+            int n = fieldEnd[f] - start;
+            if (n != s.length()) return false;
+            for (int i = 0; i < n; i++) {
+                char c = s.charAt(i);
+                if (c >= 0x80 || buf.get(start + i) != c) return false;
+            }
+            return true;
+        }
+
+        String text(int f) {
+            int s = fieldStart[f], e = fieldEnd[f];
+            byte[] bytes = new byte[e - s];
+            buf.get(s, bytes);
+            String v = new String(bytes, StandardCharsets.UTF_8);
+            return fieldQuoted[f] ? v.replace("\"\"", "\"") : v;
+        }
+
+        long integer(int f) {
+            int i = fieldStart[f], e = fieldEnd[f];
+            if (i == e) throw new NumberFormatException("empty");
+            boolean neg = buf.get(i) == '-';
+            if (neg) i++;
+            long v = 0;
+            for (; i < e; i++) {
+                int d = buf.get(i) - '0';
+                if (d < 0 || d > 9) throw new NumberFormatException("not an integer");
+                v = v * 10 + d;
+            }
+            return neg ? -v : v;
+        }
+
+        double decimal(int f) {
+            // plain "123.45" is the common case; anything else goes through parseDouble
+            int i = fieldStart[f], e = fieldEnd[f];
+            if (i == e) throw new NumberFormatException("empty");
+            boolean neg = buf.get(i) == '-';
+            if (neg) i++;
+            long mant = 0;
+            int scale = 0;
+            boolean dot = false;
+            int digits = 0;
+            for (; i < e; i++) {
+                byte b = buf.get(i);
+                if (b == '.' && !dot) { dot = true; continue; }
+                int d = b - '0';
+                if (d < 0 || d > 9 || ++digits > 17) return Double.parseDouble(text(f));
+                mant = mant * 10 + d;
+                if (dot) scale++;
+            }
+            double v = scale == 0 ? mant : mant / POW10[scale];
+            return neg ? -v : v;
+        }
+
+        private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9,
+            1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17
+        };
+    }
+}
@@ -0,0 +1,137 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * Minimal streaming JSON writer (no libs). Values go straight to the
+ * underlying Writer, so a response or file never has to be built as one big
+ * String. Commas between members are handled here; callers just nest
+ * begin/end calls.
+ */
+public class JsonWriter implements AutoCloseable {
+    private final Writer out;
+    // first[depth] is true until the first member of the current object/array is written
+    private boolean[] first = new boolean[16];
+    private int depth = 0;
+    private boolean afterName = false;
+    private char[] scratch; // number formatting buffer, allocated on first use
+
+    public JsonWriter(Writer out) {
+        this.out = out;
+        first[0] = true;
+    }
+
+    public JsonWriter beginObject() throws IOException { return open('{'); }
+    public JsonWriter endObject() throws IOException { return close('}'); }
+    public JsonWriter beginArray() throws IOException { return open('['); }
+    public JsonWriter endArray() throws IOException { return close(']'); }
+
+    public JsonWriter name(String name) throws IOException {
+        separator();
+        writeString(name);
+        out.write(':');
+        afterName = true;
+        return this;
+    }
+
+    public JsonWriter value(String s) throws IOException {
+        if (s == null) return nullValue();
+        separator();
+        writeString(s);
+        return this;
+    }
+
+    public JsonWriter value(long n) throws IOException {
+        separator();
+        out.write(Long.toString(n));
+        return this;
+    }
+
+    public JsonWriter value(double d) throws IOException {
+        if (Double.isNaN(d) || Double.isInfinite(d)) return nullValue();
+        separator();
+        out.write(Double.toString(d));
+        return this;
+    }
+
+    /** Fixed number of decimals, like String.format("%.Nf") but without the formatter. */
+    public JsonWriter value(double d, int decimals) throws IOException {
+        if (Double.isNaN(d) || Double.isInfinite(d)) return nullValue();
+        separator();
+        if (scratch == null) scratch = new char[Decimals.MAX_CHARS];
+        out.write(scratch, 0, Decimals.format(d, decimals, scratch, 0));
+        return this;
+    }
+
+    public JsonWriter value(boolean b) throws IOException {
+        separator();
+        out.write(b ? "true" : "false");
+        return this;
+    }
+
+    public JsonWriter nullValue() throws IOException {
+        separator();
+        out.write("null");
+        return this;
+    }
+
+    public void flush() throws IOException { out.flush(); }
+
+    @Override
+    public void close() throws IOException { out.close(); }
+
+    // --- helpers
+    private JsonWriter open(char c) throws IOException {
+        separator();
+        out.write(c);
+        if (++depth == first.length) {
+            first = Arrays.copyOf(first, depth * 2);
+        }
+        first[depth] = true;
+        return this;
+    }
+
+    private JsonWriter close(char c) throws IOException {
+        if (depth == 0) throw new IllegalStateException("Nothing to close");
+        depth--;
+        out.write(c);
+        return this;
+    }
+
+    private void separator() throws IOException {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (!first[depth]) {
+            out.write(',');
+        }
+        first[depth] = false;
+    }
+
+    private void writeString(String s) throws IOException {
+        out.write('"');
+        int start = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            String rep;
+            if (c == '"') rep = "\\\"";
+            else if (c == '\\') rep = "\\\\";
+            else if (c == '\n') rep = "\\n";
+            else if (c == '\r') rep = "\\r";
+            else if (c == '\t') rep = "\\t";
+            else if (c < 0x20 || c == '\u2028' || c == '\u2029') rep = unicodeEscape(c);
+            else continue;
+            out.write(s, start, i - start);
+            out.write(rep);
+            start = i + 1;
+        }
+        out.write(s, start, s.length() - start);
+        out.write('"');
+    }
+
+    private static String unicodeEscape(char c) {
+        String hex = Integer.toHexString(c);
+        return "\\u" + "0000".substring(hex.length()) + hex;
+    }
+}
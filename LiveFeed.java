@@ -0,0 +1,451 @@
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Live per-user activity for open dashboards, sent as Server-Sent Events.
+ *
+ * Events (a set added, a food added, a weight logged) update a small
+ * per-user state: today's sets, calories burned and volume, today's foods,
+ * intake and macros, the last set and food, the latest weight. Each message
+ * is a full snapshot of that state, not a delta, which makes the rest easy:
+ *  - coalescing: events only mark the user dirty; every coalesceMillis the
+ *    current snapshot is encoded once and sent to that user's subscribers,
+ *    so a burst of 50 sets is one message;
+ *  - backpressure: each subscriber has at most one write in flight. A slow
+ *    client simply skips the snapshots it could not take and gets the newest
+ *    one when its write finishes; nothing queues up per client.
+ * Writes block, so they run on a pool of writerThreads. A write stuck for
+ * longer than writeTimeoutMillis gets its thread interrupted, which aborts a
+ * socket write (the channel is closed); the writer then closes the stream
+ * itself. The ticker only ever interrupts, so one stuck client cannot stall
+ * the others' updates.
+ * Idle streams get a comment line every HEARTBEAT_MILLIS, which is also how
+ * closed connections are noticed.
+ *
+ * A user's state lives while it has subscribers or holds something from
+ * today: a user who only opened and closed a dashboard leaves nothing
+ * behind, and state nobody is watching is dropped once the day it shows is
+ * over (the counters are per day; the weight is the one thing lost, and a
+ * new dashboard gets it again with the next weight log).
+ *
+ * Sources: follow(email, session/meal) listens to a WorkoutSession or Meal
+ * the way DailyRollupCache does; weightLogged is called for weight logs
+ * (DashboardServer wires it to AppProgressStore).
+ */
+public class LiveFeed {
+
+    /** Where a subscriber's bytes go; for DashboardServer, an open HTTP response. */
+    public interface Sink {
+        /**
+         * Writes and flushes one message. May block while the client is slow,
+         * but must give up with an IOException when the thread is interrupted.
+         */
+        void send(byte[] message) throws IOException;
+
+        void close();
+    }
+
+    private static final long HEARTBEAT_MILLIS = 15_000;
+    private static final byte[] PING = ": ping\n\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final int maxSubscribers;
+    private final long writeTimeoutNanos;
+    private final Map<String, Channel> channels = new ConcurrentHashMap<>();
+    private final Set<Channel> dirty = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ScheduledExecutorService ticker;
+    private final ExecutorService writers;
+
+    public LiveFeed(long coalesceMillis, int writerThreads, long writeTimeoutMillis, int maxSubscribers) {
+        this.maxSubscribers = maxSubscribers;
+        this.writeTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(writeTimeoutMillis);
+        AtomicInteger n = new AtomicInteger();
+        this.ticker = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "live-feed-ticker"));
+        this.writers = Executors.newFixedThreadPool(Math.max(1, writerThreads),
+                r -> daemon(r, "live-feed-writer-" + n.incrementAndGet()));
+        ticker.scheduleWithFixedDelay(this::flush, coalesceMillis, coalesceMillis, TimeUnit.MILLISECONDS);
+        ticker.scheduleWithFixedDelay(this::sweep, 1, 1, TimeUnit.SECONDS);
+    }
+
+    // ===== Subscribers =====
+
+    public boolean hasCapacity() {
+        return subscriberCount.get() < maxSubscribers;
+    }
+
+    /** Starts streaming the user's snapshots to sink, beginning with the current one. False when full. */
+    public boolean subscribe(String userEmail, Sink sink) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            return false;
+        }
+        Subscriber s = new Subscriber(sink);
+        // inside compute, so it cannot race with the channel being removed
+        Channel ch = channels.compute(key(userEmail), (k, c) -> {
+            if (c == null) c = new Channel(k);
+            c.subscribers.add(s);
+            return c;
+        });
+        dirty.add(ch); // first snapshot on the next tick
+        return true;
+    }
+
+    public int subscriberCount() {
+        return subscriberCount.get();
+    }
+
+    /** Number of users with live state or open streams. */
+    public int channelCount() {
+        return channels.size();
+    }
+
+    /** Closes every stream and stops the feed's threads. */
+    public void close() {
+        ticker.shutdownNow();
+        writers.shutdownNow(); // interrupts writes in progress; those writers close their streams
+        try {
+            writers.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Channel ch : channels.values()) {
+            for (Subscriber s : ch.subscribers) drop(ch, s);
+        }
+    }
+
+    // ===== Events =====
+
+    /** Streams the session's sets (those so far and later ones) to the user's dashboards. */
+    public void follow(String userEmail, WorkoutSession session) {
+        if (!session.addListener(new Tracker(this, key(userEmail)))) return;
+        LocalDate date = session.getStart().toLocalDate();
+        for (Map.Entry<Exercise, List<SetEntry>> e : session.getSets().entrySet()) {
+            for (SetEntry s : e.getValue()) {
+                setAdded(userEmail, date, e.getKey().getName(), s, e.getKey().estimateCalories(s));
+            }
+        }
+    }
+
+    /** Streams the meal's foods (those so far and later ones) to the user's dashboards. */
+    public void follow(String userEmail, Meal meal) {
+        if (!meal.addListener(new Tracker(this, key(userEmail)))) return;
+        for (int i = 0; i < meal.itemCount(); i++) {
+            foodAdded(userEmail, meal.getDate(), meal.foodAt(i), meal.gramsAt(i));
+        }
+    }
+
+    public void setAdded(String userEmail, LocalDate date, String exercise, SetEntry set, double calories) {
+        update(userEmail, ch -> {
+            if (!ch.onDay(date)) return false;
+            ch.sets++;
+            ch.burned += calories;
+            if (set.getReps() > 0 && set.getWeight() > 0) ch.volume += set.getReps() * set.getWeight();
+            ch.lastExercise = exercise;
+            ch.lastReps = set.getReps();
+            ch.lastSetWeight = set.getWeight();
+            return true;
+        });
+    }
+
+    public void foodAdded(String userEmail, LocalDate date, FoodItem food, double grams) {
+        double g = grams / 100.0;
+        update(userEmail, ch -> {
+            if (!ch.onDay(date)) return false;
+            ch.foods++;
+            ch.intake += food.getCaloriesPer100g() * g;
+            ch.protein += food.getProteinPer100g() * g;
+            ch.carbs += food.getCarbsPer100g() * g;
+            ch.fat += food.getFatPer100g() * g;
+            ch.lastFood = food.getName();
+            ch.lastFoodGrams = grams;
+            return true;
+        });
+    }
+
+    public void weightLogged(String userEmail, LocalDate date, double kg) {
+        update(userEmail, ch -> {
+            if (ch.weightDate != null && date.isBefore(ch.weightDate)) return false; // back-dated entry
+            ch.weightKg = kg;
+            ch.weightDate = date;
+            return true;
+        });
+    }
+
+    /** Applies change to the user's state (created if needed); a true result means it changed. */
+    private void update(String userEmail, Predicate<Channel> change) {
+        // inside compute, so the update cannot land on a channel that is being removed
+        Channel ch = channels.compute(key(userEmail), (k, c) -> {
+            if (c == null) c = new Channel(k);
+            synchronized (c) {
+                if (change.test(c)) c.version++;
+            }
+            return c;
+        });
+        dirty.add(ch);
+    }
+
+    // ===== Sending =====
+
+    /** Ticker: one snapshot per dirty user to every subscriber that is not still busy. */
+    private void flush() {
+        for (Channel ch : dirty) {
+            dirty.remove(ch);
+            if (ch.subscribers.isEmpty()) continue;
+            Snapshot snap = ch.snapshot();
+            boolean lagging = false;
+            for (Subscriber s : ch.subscribers) {
+                if (s.sentVersion >= snap.version) continue;
+                if (!trySend(ch, s, snap.bytes, snap.version)) lagging = true;
+            }
+            if (lagging) dirty.add(ch); // retry when the busy writes are done
+        }
+    }
+
+    /** Ticker, once a second: heartbeats for idle streams, aborting stuck writes, dropping past days. */
+    private void sweep() {
+        long now = System.nanoTime();
+        long heartbeat = TimeUnit.MILLISECONDS.toNanos(HEARTBEAT_MILLIS);
+        LocalDate today = LocalDate.now();
+        for (Channel ch : channels.values()) {
+            if (ch.subscribers.isEmpty()) {
+                // same compute as subscribe and update, so a new event or stream keeps it
+                channels.computeIfPresent(ch.user, (k, c) -> c.subscribers.isEmpty() && c.isPast(today) ? null : c);
+                continue;
+            }
+            for (Subscriber s : ch.subscribers) {
+                if (s.writing.get()) {
+                    s.abortIfStuck(now, writeTimeoutNanos);
+                } else if (now - s.lastSent > heartbeat) {
+                    trySend(ch, s, PING, s.sentVersion);
+                }
+            }
+        }
+    }
+
+    /** Hands the write to the writer pool unless one is already in flight. */
+    private boolean trySend(Channel ch, Subscriber s, byte[] message, long version) {
+        if (!s.writing.compareAndSet(false, true)) return false;
+        try {
+            writers.execute(() -> write(ch, s, message, version));
+        } catch (RejectedExecutionException e) {
+            s.writing.set(false); // shutting down
+        }
+        return true;
+    }
+
+    // on a writer thread
+    private void write(Channel ch, Subscriber s, byte[] message, long version) {
+        boolean failed = false;
+        s.startWrite();
+        try {
+            s.sink.send(message);
+            s.sentVersion = Math.max(s.sentVersion, version);
+            s.lastSent = System.nanoTime();
+        } catch (IOException | RuntimeException e) {
+            failed = true; // client went away, or the write was aborted
+        } finally {
+            s.endWrite();
+            s.writing.set(false);
+        }
+        if (failed) drop(ch, s); // closed here, not on the ticker: closing may block like the write did
+    }
+
+    private void drop(Channel ch, Subscriber s) {
+        if (!ch.subscribers.remove(s)) return;
+        subscriberCount.decrementAndGet();
+        s.sink.close();
+        if (ch.subscribers.isEmpty()) {
+            // forget users who only had a dashboard open; same compute as subscribe and update
+            channels.computeIfPresent(ch.user, (k, c) -> c == ch && c.isIdle() ? null : c);
+        }
+    }
+
+    // ===== Internals =====
+
+    private static String key(String userEmail) {
+        return userEmail == null ? "" : userEmail.toLowerCase(Locale.ROOT);
+    }
+
+    private static Thread daemon(Runnable r, String name) {
+        Thread t = new Thread(r, name);
+        t.setDaemon(true);
+        return t;
+    }
+
+    private static final class Subscriber {
+        final Sink sink;
+        final AtomicBoolean writing = new AtomicBoolean();
+        volatile long sentVersion = -1;
+        volatile long lastSent = System.nanoTime();
+        private Thread writer;      // thread in sink.send, if any; guarded by this
+        private long writeStarted;  // guarded by this
+
+        Subscriber(Sink sink) {
+            this.sink = sink;
+        }
+
+        synchronized void startWrite() {
+            writer = Thread.currentThread();
+            writeStarted = System.nanoTime();
+        }
+
+        void endWrite() {
+            synchronized (this) {
+                writer = null;
+            }
+            // an abort that came after the write finished must not hit this thread's next write
+            Thread.interrupted();
+        }
+
+        /** Interrupts the writer if it has been in send for longer than timeout. Never blocks. */
+        synchronized void abortIfStuck(long now, long timeoutNanos) {
+            if (writer != null && now - writeStarted > timeoutNanos) {
+                writer.interrupt();
+            }
+        }
+    }
+
+    private static final class Snapshot {
+        final long version;
+        final byte[] bytes;
+
+        Snapshot(long version, byte[] bytes) {
+            this.version = version;
+            this.bytes = bytes;
+        }
+    }
+
+    /** One user's live state and open streams. Fields are guarded by the channel. */
+    private static final class Channel {
+        final String user;
+        final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+        long version;
+        LocalDate day;
+        int sets, foods;
+        double burned, volume, intake, protein, carbs, fat;
+        String lastExercise, lastFood;
+        int lastReps;
+        double lastSetWeight, lastFoodGrams;
+        double weightKg = Double.NaN;
+        LocalDate weightDate;
+        Snapshot encoded; // last snapshot built, reused until the version moves on
+
+        Channel(String user) {
+            this.user = user;
+        }
+
+        /** No subscribers and nothing to show: safe to forget. */
+        synchronized boolean isIdle() {
+            return subscribers.isEmpty() && version == 0;
+        }
+
+        /** Nothing from `today` or later: the counters and the weight are all from earlier days. */
+        synchronized boolean isPast(LocalDate today) {
+            return (day == null || day.isBefore(today)) && (weightDate == null || weightDate.isBefore(today));
+        }
+
+        /** Moves the counters to `date` if it is newer; false for events from an earlier day. */
+        boolean onDay(LocalDate date) {
+            if (day == null || date.isAfter(day)) {
+                day = date;
+                sets = foods = 0;
+                burned = volume = intake = protein = carbs = fat = 0;
+                lastExercise = lastFood = null;
+                return true;
+            }
+            return !date.isBefore(day);
+        }
+
+        synchronized Snapshot snapshot() {
+            if (encoded != null && encoded.version == version) return encoded;
+            StringWriter sw = new StringWriter(256);
+            try (JsonWriter json = new JsonWriter(sw)) {
+                json.beginObject()
+                    .name("email").value(user)
+                    .name("version").value(version)
+                    .name("date").value(day == null ? null : day.toString())
+                    .name("sets").value(sets)
+                    .name("burnedKcal").value(burned, 1)
+                    .name("volumeKg").value(volume, 1)
+                    .name("foods").value(foods)
+                    .name("intakeKcal").value(intake, 1)
+                    .name("proteinG").value(protein, 1)
+                    .name("carbsG").value(carbs, 1)
+                    .name("fatG").value(fat, 1);
+                if (lastExercise != null) {
+                    json.name("lastSet").beginObject()
+                        .name("exercise").value(lastExercise)
+                        .name("reps").value(lastReps)
+                        .name("weightKg").value(lastSetWeight, 1)
+                        .endObject();
+                }
+                if (lastFood != null) {
+                    json.name("lastFood").beginObject()
+                        .name("name").value(lastFood)
+                        .name("grams").value(lastFoodGrams, 1)
+                        .endObject();
+                }
+                if (weightDate != null) {
+                    json.name("weightKg").value(weightKg, 1)
+                        .name("weightDate").value(weightDate.toString());
+                }
+                json.endObject();
+            } catch (IOException e) {
+                throw new IllegalStateException(e); // StringWriter does not throw
+            }
+            // JsonWriter escapes newlines, so the payload fits on one data: line
+            String event = "id: " + version + "\nevent: update\ndata: " + sw + "\n\n";
+            encoded = new Snapshot(version, event.getBytes(StandardCharsets.UTF_8));
+            return encoded;
+        }
+    }
+
+    /** Follows one session or meal for one user; equal per (feed, user) so it registers once. */
+    private static final class Tracker implements WorkoutSession.Listener, Meal.Listener {
+        final LiveFeed feed;
+        final String user;
+
+        Tracker(LiveFeed feed, String user) {
+            this.feed = feed;
+            this.user = user;
+        }
+
+        @Override
+        public void setAdded(WorkoutSession session, Exercise exercise, SetEntry set, double calories) {
+            feed.setAdded(user, session.getStart().toLocalDate(), exercise.getName(), set, calories);
+        }
+
+        @Override
+        public void foodAdded(Meal meal, FoodItem food, double grams) {
+            feed.foodAdded(user, meal.getDate(), food, grams);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Tracker)) return false;
+            Tracker t = (Tracker) o;
+            return feed == t.feed && user.equals(t.user);
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(feed) * 31 + user.hashCode();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks that dashboards which stop reading cannot stall the live feed.
+ *
+ * Starts DashboardServer with two writer threads and opens more never-reading
+ * streams than that for one user, whose updates are large enough to fill the
+ * socket buffers. A normal client follows another user. The normal client
+ * must keep getting updates (at worst a gap of about the write timeout while
+ * the stuck writes are aborted), and the stuck streams must be closed.
+ * Also checks that unknown users get 404, that a stream for a user with
+ * no activity leaves no state behind, and that state from an earlier day
+ * nobody watches is dropped. Exits with status 1 on failure.
+ *
+ * Run: java LiveFeedSlowClientCheck [seconds]
+ */
+public class LiveFeedSlowClientCheck {
+    private static final int STUCK_CLIENTS = 3;
+    private static final long WRITE_TIMEOUT_MILLIS = 1_500;
+
+    private static volatile long lastFastUpdate;
+    private static volatile long maxGap;
+    private static volatile int fastUpdates;
+
+    public static void main(String[] args) throws Exception {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        File tmp = File.createTempFile("users-live-check", ".csv");
+        tmp.delete();
+        tmp.deleteOnExit();
+        new File(tmp.getPath() + ".log").deleteOnExit();
+        UserStore store = new UserStore(tmp.getPath(), new PasswordHasher(1));
+        store.register(new User("slow@example.com", "slow", "pw"));
+        store.register(new User("fast@example.com", "fast", "pw"));
+        store.register(new User("idle@example.com", "idle", "pw"));
+
+        DashboardServer.Config config = new DashboardServer.Config();
+        config.port = 0;
+        config.liveCoalesceMillis = 20;
+        config.liveWriterThreads = 2;
+        config.liveWriteTimeoutMillis = WRITE_TIMEOUT_MILLIS;
+        DashboardServer.start(store, config);
+        int port = DashboardServer.getPort();
+        LiveFeed feed = DashboardServer.liveFeed();
+
+        check("unknown user gets 404", status(port, "/api/live/nobody%40example.com") == 404);
+
+        // idle user: subscribe and disconnect before anything happens; the state must go away
+        feed.subscribe("idle@example.com", new LiveFeed.Sink() {
+            @Override
+            public void send(byte[] message) throws IOException {
+                throw new IOException("gone");
+            }
+
+            @Override
+            public void close() {}
+        });
+        Thread.sleep(200);
+        check("idle user's state removed", feed.channelCount() == 0);
+
+        // yesterday's weight and nobody watching: gone by the next sweep; today's stays
+        feed.weightLogged("idle@example.com", LocalDate.now().minusDays(1), 80);
+        feed.weightLogged("fast@example.com", LocalDate.now(), 70);
+        Thread.sleep(1_500);
+        check("past day's state removed", feed.channelCount() == 1);
+
+        List<Socket> stuck = new ArrayList<>();
+        for (int i = 0; i < STUCK_CLIENTS; i++) {
+            Socket s = new Socket();
+            s.setReceiveBufferSize(4096);
+            s.connect(new InetSocketAddress("localhost", port));
+            request(s, "/api/live/slow%40example.com"); // and never read
+            stuck.add(s);
+        }
+        Socket fast = new Socket("localhost", port);
+        request(fast, "/api/live/fast%40example.com");
+        Thread reader = new Thread(() -> readUpdates(fast), "fast-client");
+        reader.setDaemon(true);
+        reader.start();
+
+        // a 64 KB food name makes every slow@ snapshot big enough to fill the buffers quickly
+        FoodItem big = new FoodItem("x".repeat(64 * 1024), 100, 1, 1, 1);
+        SetEntry set = new SetEntry(1, 5, 100, 0);
+        LocalDate today = LocalDate.now();
+        long start = System.currentTimeMillis();
+        long end = start + seconds * 1000L;
+        int countAtLastThird = 0;
+        boolean marked = false;
+        while (System.currentTimeMillis() < end) {
+            feed.foodAdded("slow@example.com", today, big, 100);
+            feed.setAdded("fast@example.com", today, "Bench Press", set, 10);
+            if (!marked && System.currentTimeMillis() > end - seconds * 1000L / 3) {
+                countAtLastThird = fastUpdates;
+                marked = true;
+            }
+            Thread.sleep(10);
+        }
+        int lateUpdates = fastUpdates - countAtLastThird;
+
+        System.out.printf("fast updates=%d (last third %d), max gap=%d ms, open streams=%d%n",
+                fastUpdates, lateUpdates, maxGap, feed.subscriberCount());
+        check("fast client kept getting updates", lateUpdates > seconds * 5);
+        check("fast client gap bounded by the write timeout", maxGap < WRITE_TIMEOUT_MILLIS + 2_000);
+        check("stuck streams closed", feed.subscriberCount() == 1);
+
+        for (Socket s : stuck) s.close();
+        fast.close();
+        DashboardServer.stop();
+        System.out.println("OK");
+    }
+
+    private static void readUpdates(Socket s) {
+        try (BufferedReader in = new BufferedReader(
+                new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (!line.startsWith("data: ")) continue;
+                long now = System.currentTimeMillis();
+                if (lastFastUpdate != 0) maxGap = Math.max(maxGap, now - lastFastUpdate);
+                lastFastUpdate = now;
+                fastUpdates++;
+            }
+        } catch (IOException e) {
+            // closed at the end
+        }
+    }
+
+    private static void request(Socket s, String path) throws IOException {
+        OutputStream out = s.getOutputStream();
+        out.write(("GET " + path + " HTTP/1.1\r\nHost: localhost\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+    }
+
+    private static int status(int port, String path) throws IOException {
+        HttpURLConnection c = (HttpURLConnection) new URL("http://localhost:" + port + path).openConnection();
+        try {
+            return c.getResponseCode();
+        } finally {
+            c.disconnect();
+        }
+    }
+
+    private static void check(String what, boolean ok) {
+        if (!ok) {
+            System.out.println("FAILED: " + what);
+            DashboardServer.stop();
+            System.exit(1);
+        }
+    }
+}
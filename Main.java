@@ -2,12 +2,19 @@ import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.io.*;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.table.AbstractTableModel;
 
 public class Main {
 
@@ -24,7 +31,6 @@ public class Main {
 class FitnessDesktopApp {
 
     private JFrame frame;
-    private List<AppUser> users;
     private AppUser currentUser;
 
     private CardLayout cardLayout;
@@ -40,7 +46,7 @@ class FitnessDesktopApp {
     private List<AppExercise> exercises;
 
     public void start() {
-        users = AppUserStore.loadUsers();
+        AppUserStore.open(); // load (and migrate) the user store in the background while the window comes up
         workoutPlans = AppSampleData.createWorkoutPlans();
         exercises = AppSampleData.createExercises();
 
@@ -86,14 +92,6 @@ class FitnessDesktopApp {
         return exercises;
     }
 
-    List<AppUser> getUsers() {
-        return users;
-    }
-
-    void saveUsers() {
-        AppUserStore.saveUsers(users);
-    }
-
     // ---------- MAIN APP LAYOUT ----------
 
     private void showMainApp() {
@@ -190,6 +188,8 @@ class LoginPanel extends JPanel {
     private final FitnessDesktopApp app;
     private JTextField emailField;
     private JPasswordField passwordField;
+    private JButton loginBtn;
+    private JButton createBtn;
 
     // Allowed email domains – adjust as you like
     private static final String[] ALLOWED_DOMAINS = {
@@ -237,8 +237,8 @@ class LoginPanel extends JPanel {
         card.add(passwordField);
         card.add(Box.createVerticalStrut(20));
 
-        JButton loginBtn = new JButton("Login");
-        JButton createBtn = new JButton("Create Account");
+        loginBtn = new JButton("Login");
+        createBtn = new JButton("Create Account");
 
         loginBtn.setAlignmentX(Component.CENTER_ALIGNMENT);
         createBtn.setAlignmentX(Component.CENTER_ALIGNMENT);
@@ -251,6 +251,21 @@ class LoginPanel extends JPanel {
         card.add(createBtn);
 
         add(card);
+
+        // the buttons look users up on the EDT, which is only quick once the store is loaded
+        setButtonsEnabled(false);
+        AppUserStore.open().whenComplete((repo, err) ->
+                SwingUtilities.invokeLater(() -> {
+                    if (err != null) {
+                        err.printStackTrace();
+                        JOptionPane.showMessageDialog(this,
+                                "Could not load the user accounts.",
+                                "Error",
+                                JOptionPane.ERROR_MESSAGE);
+                        return;
+                    }
+                    setButtonsEnabled(true);
+                }));
     }
 
     // Email domain restriction
@@ -290,20 +305,7 @@ class LoginPanel extends JPanel {
             return;
         }
 
-        List<AppUser> users = app.getUsers();
-        if (users == null) {
-            users = new ArrayList<>();
-        }
-
-        AppUser user = null;
-        for (AppUser u : users) {
-            if (u.email.equalsIgnoreCase(email)) {
-                user = u;
-                break;
-            }
-        }
-
-        if (user == null) {
+        if (!AppUserStore.exists(email)) {
             JOptionPane.showMessageDialog(this,
                     "No account found for this email.",
                     "Login Failed",
@@ -311,15 +313,33 @@ class LoginPanel extends JPanel {
             return;
         }
 
-        if (!user.password.equals(password)) {
-            JOptionPane.showMessageDialog(this,
-                    "Incorrect password.",
-                    "Login Failed",
-                    JOptionPane.ERROR_MESSAGE);
-            return;
-        }
+        // the password hash is deliberately slow; check it on the hashing pool, not the EDT
+        setButtonsEnabled(false);
+        AppUserStore.loginAsync(email, password).whenComplete((user, err) ->
+                SwingUtilities.invokeLater(() -> {
+                    setButtonsEnabled(true);
+                    if (err != null) {
+                        err.printStackTrace();
+                        JOptionPane.showMessageDialog(this,
+                                "Could not check your password right now. Please try again.",
+                                "Login Failed",
+                                JOptionPane.ERROR_MESSAGE);
+                        return;
+                    }
+                    if (user == null) {
+                        JOptionPane.showMessageDialog(this,
+                                "Incorrect password.",
+                                "Login Failed",
+                                JOptionPane.ERROR_MESSAGE);
+                        return;
+                    }
+                    app.onLoginSuccess(user);
+                }));
+    }
 
-        app.onLoginSuccess(user);
+    private void setButtonsEnabled(boolean enabled) {
+        loginBtn.setEnabled(enabled);
+        createBtn.setEnabled(enabled);
     }
 
     private void handleCreateAccount(ActionEvent e) {
@@ -342,19 +362,12 @@ class LoginPanel extends JPanel {
             return;
         }
 
-        List<AppUser> users = app.getUsers();
-        if (users == null) {
-            users = new ArrayList<>();
-        }
-
-        for (AppUser u : users) {
-            if (u.email.equalsIgnoreCase(email)) {
-                JOptionPane.showMessageDialog(this,
-                        "Account already exists for this email.",
-                        "Error",
-                        JOptionPane.ERROR_MESSAGE);
-                return;
-            }
+        if (AppUserStore.exists(email)) {
+            JOptionPane.showMessageDialog(this,
+                    "Account already exists for this email.",
+                    "Error",
+                    JOptionPane.ERROR_MESSAGE);
+            return;
         }
 
         String name = JOptionPane.showInputDialog(this,
@@ -383,15 +396,45 @@ class LoginPanel extends JPanel {
             double weight = Double.parseDouble(weightStr.trim());
 
             AppUser newUser = new AppUser(email, password, name.trim(), age, height, weight, goal.trim());
-            users.add(newUser);
-            app.saveUsers();
+            setButtonsEnabled(false);
 
-            JOptionPane.showMessageDialog(this,
-                    "Account created! Logging you in...",
-                    "Success",
-                    JOptionPane.INFORMATION_MESSAGE);
+            // register hashes the password, which takes a noticeable moment
+            new SwingWorker<Boolean, Void>() {
+                @Override
+                protected Boolean doInBackground() {
+                    return AppUserStore.register(newUser);
+                }
 
-            app.onLoginSuccess(newUser);
+                @Override
+                protected void done() {
+                    setButtonsEnabled(true);
+                    boolean created;
+                    try {
+                        created = get();
+                    } catch (InterruptedException | ExecutionException ex) {
+                        ex.printStackTrace();
+                        JOptionPane.showMessageDialog(LoginPanel.this,
+                                "Could not create the account. Please try again.",
+                                "Error",
+                                JOptionPane.ERROR_MESSAGE);
+                        return;
+                    }
+                    if (!created) {
+                        JOptionPane.showMessageDialog(LoginPanel.this,
+                                "Account already exists for this email.",
+                                "Error",
+                                JOptionPane.ERROR_MESSAGE);
+                        return;
+                    }
+
+                    JOptionPane.showMessageDialog(LoginPanel.this,
+                            "Account created! Logging you in...",
+                            "Success",
+                            JOptionPane.INFORMATION_MESSAGE);
+
+                    app.onLoginSuccess(newUser);
+                }
+            }.execute();
 
         } catch (NumberFormatException ex) {
             JOptionPane.showMessageDialog(this,
@@ -643,7 +686,14 @@ class ProgressPanel extends JPanel {
 
     private final FitnessDesktopApp app;
     private JTable table;
-    private DefaultTableModel tableModel;
+    private LogTableModel tableModel;
+    private JLabel statsLabel;
+    private JButton addLogBtn;
+
+    // Rows already in the table belong to shownEmail; a new user bumps the
+    // generation so loads still running for the previous one are dropped
+    private String shownEmail;
+    private int generation;
 
     ProgressPanel(FitnessDesktopApp app) {
         this.app = app;
@@ -661,29 +711,86 @@ class ProgressPanel extends JPanel {
 
         add(header, BorderLayout.NORTH);
 
-        tableModel = new DefaultTableModel(new Object[]{"Date", "Weight (kg)", "Notes"}, 0);
+        tableModel = new LogTableModel();
         table = new JTable(tableModel);
 
         add(new JScrollPane(table), BorderLayout.CENTER);
 
-        JButton addLogBtn = new JButton("Log Today's Weight");
+        addLogBtn = new JButton("Log Today's Weight");
         addLogBtn.addActionListener(this::handleAddLog);
 
+        statsLabel = new JLabel(" ");
+
         JPanel bottom = new JPanel();
+        bottom.add(statsLabel);
         bottom.add(addLogBtn);
 
         add(bottom, BorderLayout.SOUTH);
     }
 
+    /**
+     * Loads the logs the table does not show yet on a background thread and
+     * appends them; the first load for a user reads the file, later ones only
+     * fetch the new tail from AppProgressStore's cache.
+     */
     void refresh() {
         AppUser u = app.getCurrentUser();
         if (u == null) return;
 
-        List<AppWeightLog> logs = AppProgressStore.loadLogs(u);
-        tableModel.setRowCount(0);
-        for (AppWeightLog log : logs) {
-            tableModel.addRow(new Object[]{log.date, log.weightKg, log.notes});
+        if (!u.email.equalsIgnoreCase(shownEmail)) {
+            shownEmail = u.email;
+            generation++;
+            tableModel.clear();
+            statsLabel.setText("Loading...");
+        }
+        final String email = u.email;
+        final int from = tableModel.getRowCount();
+        final int gen = generation;
+
+        new SwingWorker<List<AppWeightLog>, Void>() {
+            private String stats;
+
+            @Override
+            protected List<AppWeightLog> doInBackground() {
+                List<AppWeightLog> tail = AppProgressStore.logsSince(email, from);
+                stats = AppProgressStore.withSeries(email, ProgressPanel::describe);
+                return tail;
+            }
+
+            @Override
+            protected void done() {
+                if (gen != generation) return;
+                List<AppWeightLog> tail;
+                try {
+                    tail = get();
+                } catch (InterruptedException | ExecutionException ex) {
+                    ex.printStackTrace();
+                    return;
+                }
+                // another refresh may have appended part of this tail already (logs only grow)
+                int have = tableModel.getRowCount() - from;
+                if (have < 0 || have > tail.size()) return;
+                tableModel.appendAll(tail.subList(have, tail.size()));
+                statsLabel.setText(stats);
+            }
+        }.execute();
+    }
+
+    /** One-line summary: 7-day average, change vs the week before, 30-day trend. */
+    static String describe(WeightSeries s) {
+        if (s.isEmpty()) return "No weight logs yet";
+        LocalDate end = s.lastDate();
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("7-day avg %.1f kg", s.movingAverage(end, 7)));
+        double delta = s.weeklyDelta(end);
+        if (!Double.isNaN(delta)) {
+            sb.append(String.format(" | %+.1f kg vs last week", delta));
         }
+        WeightSeries.Trend t = s.trend(end, 30);
+        if (t.points >= 2) {
+            sb.append(String.format(" | 30-day trend %+.2f kg/week", t.slopePerWeek()));
+        }
+        return sb.toString();
     }
 
     private void handleAddLog(ActionEvent e) {
@@ -702,10 +809,24 @@ class ProgressPanel extends JPanel {
         try {
             double w = Double.parseDouble(weightStr.trim());
             AppWeightLog log = new AppWeightLog(LocalDate.now().toString(), w, notes);
-            AppProgressStore.addLog(u, log);
             u.weightKg = w;
-            AppUserStore.saveSingleUser(u);
-            refresh();
+            addLogBtn.setEnabled(false);
+
+            // both writes touch the disk; keep them off the EDT
+            new SwingWorker<Void, Void>() {
+                @Override
+                protected Void doInBackground() {
+                    AppProgressStore.addLog(u.email, log);
+                    AppUserStore.saveSingleUser(u);
+                    return null;
+                }
+
+                @Override
+                protected void done() {
+                    addLogBtn.setEnabled(true);
+                    refresh();
+                }
+            }.execute();
         } catch (NumberFormatException ex) {
             JOptionPane.showMessageDialog(this,
                     "Invalid weight value.",
@@ -715,6 +836,57 @@ class ProgressPanel extends JPanel {
     }
 }
 
+/** Weight-log rows for ProgressPanel; rows are only ever appended, in batches. */
+class LogTableModel extends AbstractTableModel {
+
+    private static final String[] COLUMNS = {"Date", "Weight (kg)", "Notes"};
+    private final List<AppWeightLog> rows = new ArrayList<>();
+
+    void appendAll(List<AppWeightLog> logs) {
+        if (logs.isEmpty()) return;
+        int first = rows.size();
+        rows.addAll(logs);
+        fireTableRowsInserted(first, rows.size() - 1);
+    }
+
+    void clear() {
+        if (rows.isEmpty()) return;
+        int last = rows.size() - 1;
+        rows.clear();
+        fireTableRowsDeleted(0, last);
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMNS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMNS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return column == 1 ? Double.class : String.class;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        AppWeightLog log = rows.get(row);
+        switch (column) {
+            case 0: return log.date;
+            case 1: return log.weightKg;
+            default: return log.notes;
+        }
+    }
+}
+
 // ======================= PROFILE PANEL =======================
 
 class ProfilePanel extends JPanel {
@@ -726,6 +898,7 @@ class ProfilePanel extends JPanel {
     private JTextField weightField;
     private JTextField goalField;
     private JLabel bmiLabel;
+    private JButton saveBtn;
 
     ProfilePanel(FitnessDesktopApp app) {
         this.app = app;
@@ -767,7 +940,7 @@ class ProfilePanel extends JPanel {
         form.add(bmiLabel, gc);
 
         gc.gridy++;
-        JButton saveBtn = new JButton("Save");
+        saveBtn = new JButton("Save");
         saveBtn.addActionListener(this::handleSave);
         form.add(saveBtn, gc);
 
@@ -818,15 +991,36 @@ class ProfilePanel extends JPanel {
             u.heightCm = Double.parseDouble(heightField.getText().trim());
             u.weightKg = Double.parseDouble(weightField.getText().trim());
             u.goal = goalField.getText().trim();
+            saveBtn.setEnabled(false);
+
+            // the user store is shared with the server and may be compacting; keep the write off the EDT
+            new SwingWorker<Void, Void>() {
+                @Override
+                protected Void doInBackground() {
+                    AppUserStore.saveSingleUser(u);
+                    return null;
+                }
 
-            AppUserStore.saveSingleUser(u);
-            refresh();
-
-            JOptionPane.showMessageDialog(this,
-                    "Profile saved.",
-                    "Success",
-                    JOptionPane.INFORMATION_MESSAGE);
-
+                @Override
+                protected void done() {
+                    saveBtn.setEnabled(true);
+                    try {
+                        get();
+                    } catch (InterruptedException | ExecutionException ex) {
+                        ex.printStackTrace();
+                        JOptionPane.showMessageDialog(ProfilePanel.this,
+                                "Could not save your profile. Please try again.",
+                                "Error",
+                                JOptionPane.ERROR_MESSAGE);
+                        return;
+                    }
+                    refresh();
+                    JOptionPane.showMessageDialog(ProfilePanel.this,
+                            "Profile saved.",
+                            "Success",
+                            JOptionPane.INFORMATION_MESSAGE);
+                }
+            }.execute();
         } catch (NumberFormatException ex) {
             JOptionPane.showMessageDialog(this,
                     "Please enter valid numbers for age, height and weight.",
@@ -840,6 +1034,7 @@ class ProfilePanel extends JPanel {
 
 class AppUser {
     String email;
+    String username;
     String password;
     String name;
     int age;
@@ -850,6 +1045,7 @@ class AppUser {
     AppUser(String email, String password, String name,
             int age, double heightCm, double weightKg, String goal) {
         this.email = email;
+        this.username = email; // desktop accounts sign in by email
         this.password = password;
         this.name = name;
         this.age = age;
@@ -864,11 +1060,20 @@ class AppUser {
         return weightKg / (hMeters * hMeters);
     }
 
-    String toCsv() {
-        return email + "," + password + "," + name.replace(",", " ") + ","
-                + age + "," + heightCm + "," + weightKg + "," + goal.replace(",", " ");
+    static AppUser fromUser(User u) {
+        AppUser a = new AppUser(u.getEmail(), u.getPassword(), u.getFullName(),
+                u.getAge(), u.getHeightCm(), u.getBodyWeightKg(), u.getGoal());
+        a.username = u.getUsername();
+        return a;
     }
 
+    User toUser() {
+        User u = new User(email, username, password, name, weightKg, heightCm, goal);
+        u.setAge(age);
+        return u;
+    }
+
+    /** Row of the old app_users.csv format; only read when migrating. */
     static AppUser fromCsv(String line) {
         String[] p = line.split(",");
         if (p.length < 7) return null;
@@ -933,120 +1138,130 @@ class AppExercise {
     }
 }
 
-class AppWeightLog {
-    String date;
-    double weightKg;
-    String notes;
+// ======================= STORAGE HELPERS =======================
 
-    AppWeightLog(String date, double weightKg, String notes) {
-        this.date = date;
-        this.weightKg = weightKg;
-        this.notes = notes;
+/**
+ * Desktop-app side of the shared UserRepository (data/users.csv, the store
+ * DashboardServer serves too). Panels edit AppUser; it is converted to and
+ * from User here, and every save persists just that one user.
+ *
+ * Accounts in the old app_users.csv (and its .log) are moved into the
+ * repository the first time it is opened and the old files are renamed to
+ * *.migrated. If both stores know an email, the repository's account wins
+ * and the skipped row is reported.
+ */
+class AppUserStore {
+    private static final String USERS_FILE = "data/users.csv";
+    private static final String LEGACY_FILE = "app_users.csv";
+    private static final String LEGACY_LOG = LEGACY_FILE + ".log";
+
+    private static UserRepository repository;
+    private static CompletableFuture<UserRepository> opening;
+
+    /**
+     * Loads the store on a background thread (once) and completes when it is
+     * ready; repository() and everything using it are quick after that.
+     */
+    static synchronized CompletableFuture<UserRepository> open() {
+        if (opening == null) {
+            opening = CompletableFuture.supplyAsync(AppUserStore::repository);
+        }
+        return opening;
     }
 
-    static AppWeightLog fromCsv(String line) {
-        String[] p = line.split(",", 3);
-        if (p.length < 2) return null;
-        try {
-            String date = p[0];
-            double w = Double.parseDouble(p[1]);
-            String notes = p.length == 3 ? p[2] : "";
-            return new AppWeightLog(date, w, notes);
-        } catch (Exception e) {
-            return null;
+    /** The store, loading it first if needed (reads the whole file: not on the EDT before open() completes). */
+    static synchronized UserRepository repository() {
+        if (repository == null) {
+            UserStore store = new UserStore(USERS_FILE);
+            migrateLegacy(store);
+            repository = store;
         }
+        return repository;
     }
 
-    String toCsv() {
-        String safeNotes = notes == null ? "" : notes.replace("\n", " ").replace(",", " ");
-        return date + "," + weightKg + "," + safeNotes;
+    static boolean exists(String email) {
+        return repository().findByEmail(email) != null;
     }
-}
-
-// ======================= STORAGE HELPERS =======================
-
-class AppUserStore {
-    private static final String FILE = "app_users.csv";
 
-    static List<AppUser> loadUsers() {
-        List<AppUser> list = new ArrayList<>();
-        if (!Files.exists(Paths.get(FILE))) {
-            return list;
-        }
-        try (BufferedReader br = new BufferedReader(new FileReader(FILE))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                AppUser u = AppUser.fromCsv(line);
-                if (u != null) {
-                    list.add(u);
-                }
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-        return list;
+    /** Checks the password on the hashing pool; completes with null if it does not match. */
+    static CompletableFuture<AppUser> loginAsync(String email, String password) {
+        return repository().loginAsync(email, password)
+                .thenApply(u -> u == null ? null : AppUser.fromUser(u));
     }
 
-    static void saveUsers(List<AppUser> users) {
-        try (PrintWriter pw = new PrintWriter(new FileWriter(FILE))) {
-            for (AppUser u : users) {
-                pw.println(u.toCsv());
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+    /** Adds a new account; false if the email is already taken. Hashes the password, so not on the EDT. */
+    static boolean register(AppUser user) {
+        User u = user.toUser();
+        if (repository().register(u) == null) return false;
+        user.password = u.getPassword(); // keep the hash, not what was typed
+        return true;
     }
 
+    /** Saves one new or changed user as a single appended record. Waits for the write, so not on the EDT. */
     static void saveSingleUser(AppUser user) {
-        List<AppUser> users = loadUsers();
-        boolean found = false;
-        for (int i = 0; i < users.size(); i++) {
-            if (users.get(i).email.equalsIgnoreCase(user.email)) {
-                users.set(i, user);
-                found = true;
-                break;
-            }
-        }
-        if (!found) {
-            users.add(user);
+        UserRepository repo = repository();
+        User u = user.toUser();
+        if (!repo.update(u)) {
+            repo.register(u);
         }
-        saveUsers(users);
     }
-}
 
-class AppProgressStore {
+    // ===== Migration from app_users.csv =====
 
-    private static String fileForUser(AppUser u) {
-        String safe = u.email.replace("@", "_at_").replace(".", "_");
-        return "app_progress_" + safe + ".csv";
+    private static void migrateLegacy(UserRepository repo) {
+        if (!Files.exists(Paths.get(LEGACY_FILE)) && !Files.exists(Paths.get(LEGACY_LOG))) {
+            return;
+        }
+        Map<String, AppUser> byEmail = new LinkedHashMap<>();
+        readInto(LEGACY_FILE, byEmail, false);
+        readInto(LEGACY_LOG, byEmail, true);
+
+        // registerAll keeps passwords as they are and writes one snapshot; plaintext
+        // ones are hashed by UserStore.login on each user's next successful login
+        List<User> users = new ArrayList<>(byEmail.size());
+        for (AppUser u : byEmail.values()) {
+            users.add(u.toUser());
+        }
+        List<User> skipped = repo.registerAll(users);
+        for (User u : skipped) {
+            System.err.println("Not migrating app user " + u.getEmail() + ": already in " + USERS_FILE);
+        }
+        System.out.println("Migrated " + (users.size() - skipped.size()) + " of " + users.size()
+                + " users from " + LEGACY_FILE);
+
+        for (String file : new String[]{LEGACY_FILE, LEGACY_LOG}) {
+            try {
+                if (Files.exists(Paths.get(file))) {
+                    Files.move(Paths.get(file), Paths.get(file + ".migrated"),
+                            StandardCopyOption.REPLACE_EXISTING);
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
     }
 
-    static List<AppWeightLog> loadLogs(AppUser u) {
-        List<AppWeightLog> list = new ArrayList<>();
-        String file = fileForUser(u);
-        if (!Files.exists(Paths.get(file))) return list;
-
+    /** Reads user rows into the map. Log rows replace earlier ones with the same email. */
+    private static void readInto(String file, Map<String, AppUser> byEmail, boolean replace) {
+        if (!Files.exists(Paths.get(file))) {
+            return;
+        }
         try (BufferedReader br = new BufferedReader(new FileReader(file))) {
             String line;
             while ((line = br.readLine()) != null) {
-                AppWeightLog log = AppWeightLog.fromCsv(line);
-                if (log != null) {
-                    list.add(log);
+                AppUser u = AppUser.fromCsv(line);
+                if (u != null) {
+                    String key = u.email.toLowerCase(Locale.ROOT);
+                    if (replace) {
+                        byEmail.put(key, u);
+                    } else {
+                        byEmail.putIfAbsent(key, u);
+                    }
                 }
             }
         } catch (IOException e) {
             e.printStackTrace();
         }
-        return list;
-    }
-
-    static void addLog(AppUser u, AppWeightLog log) {
-        String file = fileForUser(u);
-        try (PrintWriter pw = new PrintWriter(new FileWriter(file, true))) {
-            pw.println(log.toCsv());
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
     }
 }
 
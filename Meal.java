@@ -1,45 +1,92 @@
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
 public class Meal {
     private final UUID id = UUID.randomUUID();
-    private final LocalDate date = LocalDate.now();
+    private final LocalDate date;
     private final String name; // Breakfast/Lunch/Dinner/Snack/custom
-    private final Map<FoodItem, Double> items = new LinkedHashMap<>(); // grams
+    // Items in insertion order as parallel arrays; slotByFood maps FoodItem index -> slot.
+    // Adding grams to a food already in the meal is an array update, not a new Double.
+    private FoodItem[] foods = new FoodItem[4];
+    private double[] grams = new double[4];
+    private int count;
+    private final IntIntMap slotByFood = new IntIntMap();
+    // running totals, kept up to date by addFood
+    private double calories, protein, carbs, fat;
+    private List<Listener> listeners; // created on first addListener
 
-    public Meal(String name) { this.name = name; }
+    /** Told about every food added after it was registered. */
+    public interface Listener {
+        void foodAdded(Meal meal, FoodItem food, double grams);
+    }
+
+    public Meal(String name) { this(name, LocalDate.now()); }
+
+    /** Meal for a given day, e.g. when loading history. */
+    public Meal(String name, LocalDate date) {
+        this.name = name;
+        this.date = date;
+    }
 
     public void addFood(FoodItem fi, double grams) {
         if (grams <= 0) throw new IllegalArgumentException("grams must be > 0");
-        items.merge(fi, grams, Double::sum);
+        int slot = slotByFood.get(fi.getIndex());
+        if (slot < 0) {
+            if (count == foods.length) {
+                foods = Arrays.copyOf(foods, count * 2);
+                this.grams = Arrays.copyOf(this.grams, count * 2);
+            }
+            slot = count++;
+            foods[slot] = fi;
+            slotByFood.put(fi.getIndex(), slot);
+        }
+        this.grams[slot] += grams;
+        double g = grams / 100.0;
+        calories += fi.getCaloriesPer100g() * g;
+        protein  += fi.getProteinPer100g()  * g;
+        carbs    += fi.getCarbsPer100g()    * g;
+        fat      += fi.getFatPer100g()      * g;
+        if (listeners != null) {
+            for (Listener l : listeners) l.foodAdded(this, fi, grams);
+        }
     }
 
-    public double totalCalories() {
-        double cal = 0;
-        for (var e : items.entrySet()) {
-            double g = e.getValue() / 100.0;
-            cal += e.getKey().getCaloriesPer100g() * g;
-        }
-        return cal;
+    /** Registers l unless an equal listener is already registered. Returns true if added. */
+    public boolean addListener(Listener l) {
+        if (listeners == null) listeners = new ArrayList<>(2);
+        if (listeners.contains(l)) return false;
+        listeners.add(l);
+        return true;
     }
 
-    public Macros totalMacros() {
-        double p=0, c=0, f=0;
-        for (var e : items.entrySet()) {
-            double g = e.getValue() / 100.0;
-            var fi = e.getKey();
-            p += fi.getProteinPer100g() * g;
-            c += fi.getCarbsPer100g()   * g;
-            f += fi.getFatPer100g()     * g;
-        }
-        return new Macros(p, c, f);
+    public void removeListener(Listener l) {
+        if (listeners != null) listeners.remove(l);
     }
 
+    public double totalCalories() { return calories; }
+
+    public Macros totalMacros() { return new Macros(protein, carbs, fat); }
+
     public String getName() { return name; }
     public LocalDate getDate() { return date; }
-    public Map<FoodItem, Double> getItems() { return items; } // <-- needed for export
+
+    // Primitive access to the items, in the order they were first added
+    public int itemCount() { return count; }
+    public FoodItem foodAt(int i) { return foods[i]; }
+    public double gramsAt(int i) { return grams[i]; }
+
+    /** Convenience copy as a map (boxes every amount); loops should use itemCount/foodAt/gramsAt. */
+    public Map<FoodItem, Double> getItems() {
+        Map<FoodItem, Double> items = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) items.put(foods[i], grams[i]);
+        return Collections.unmodifiableMap(items);
+    }
 
     public static class Macros {
         public final double protein, carbs, fat;
@@ -51,9 +98,9 @@ public class Meal {
     public String summary() {
         StringBuilder sb = new StringBuilder();
         sb.append("Meal: ").append(name).append(" (").append(date).append(")\n");
-        for (var e : items.entrySet()) {
-            sb.append(" - ").append(e.getKey().getName())
-              .append(" : ").append(e.getValue().intValue()).append(" g\n");
+        for (int i = 0; i < count; i++) {
+            sb.append(" - ").append(foods[i].getName())
+              .append(" : ").append((int) grams[i]).append(" g\n");
         }
         Macros m = totalMacros();
         sb.append(String.format("Totals → Calories: %.0f kcal | Protein: %.1f g | Carbs: %.1f g | Fat: %.1f g",
@@ -0,0 +1,105 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Allocation and memory check for heavy meal logging: a year of days with
+ * many meals each, where most addFood calls hit a food already in the meal.
+ * Compares the old LinkedHashMap<FoodItem, Double> + merge(Double::sum) store
+ * with Meal's primitive arrays. Reports bytes allocated per addFood (from the
+ * HotSpot per-thread counter) and heap retained by all the meals.
+ * Plain main() harness; there is no JMH setup in this tree.
+ *
+ * Run: java MealAllocationBenchmark [days] [mealsPerDay] [addsPerMeal]
+ */
+public class MealAllocationBenchmark {
+    private static Object keep; // keeps the boxed run's Meal objects reachable until measured
+
+    public static void main(String[] args) {
+        int days = args.length > 0 ? Integer.parseInt(args[0]) : 365;
+        int mealsPerDay = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int addsPerMeal = args.length > 2 ? Integer.parseInt(args[2]) : 40;
+        int meals = days * mealsPerDay;
+        long adds = (long) meals * addsPerMeal;
+        List<FoodItem> foods = new FoodCatalog().all();
+
+        for (int round = 0; round < 3; round++) {
+            long a0 = allocatedBytes();
+            long h0 = usedHeapAfterGc();
+            long t0 = System.nanoTime();
+            List<Map<FoodItem, Double>> boxed = logBoxed(foods, meals, addsPerMeal);
+            long t1 = System.nanoTime();
+            long a1 = allocatedBytes();
+            long h1 = usedHeapAfterGc();
+            report("LinkedHashMap", adds, t1 - t0, a1 - a0, h1 - h0, boxed.size());
+            boxed = null;
+            keep = null;
+
+            a0 = allocatedBytes();
+            h0 = usedHeapAfterGc();
+            t0 = System.nanoTime();
+            List<Meal> primitive = logPrimitive(foods, meals, addsPerMeal);
+            t1 = System.nanoTime();
+            a1 = allocatedBytes();
+            h1 = usedHeapAfterGc();
+            report("Meal arrays  ", adds, t1 - t0, a1 - a0, h1 - h0, primitive.size());
+            primitive = null;
+            System.out.println();
+        }
+    }
+
+    /**
+     * The pre-change storage, kept here for comparison. An (empty) Meal is still
+     * created per meal so its id, name and date cost the same on both sides.
+     */
+    private static List<Map<FoodItem, Double>> logBoxed(List<FoodItem> foods, int meals, int adds) {
+        Random rnd = new Random(42);
+        List<Map<FoodItem, Double>> out = new ArrayList<>(meals);
+        List<Meal> shells = new ArrayList<>(meals);
+        for (int m = 0; m < meals; m++) {
+            shells.add(new Meal("Meal " + m));
+            Map<FoodItem, Double> items = new LinkedHashMap<>();
+            for (int i = 0; i < adds; i++) {
+                items.merge(foods.get(rnd.nextInt(foods.size())), 1 + rnd.nextInt(300) * 1.0, Double::sum);
+            }
+            out.add(items);
+        }
+        keep = shells;
+        return out;
+    }
+
+    private static List<Meal> logPrimitive(List<FoodItem> foods, int meals, int adds) {
+        Random rnd = new Random(42);
+        List<Meal> out = new ArrayList<>(meals);
+        for (int m = 0; m < meals; m++) {
+            Meal meal = new Meal("Meal " + m);
+            for (int i = 0; i < adds; i++) {
+                meal.addFood(foods.get(rnd.nextInt(foods.size())), 1 + rnd.nextInt(300) * 1.0);
+            }
+            out.add(meal);
+        }
+        return out;
+    }
+
+    private static void report(String label, long adds, long nanos, long allocated, long retained, int meals) {
+        System.out.printf("%s  %,d meals  %6.1f ns/add  %6.1f B allocated/add  %,8d KB retained%n",
+                label, meals, nanos / (double) adds, allocated / (double) adds, Math.max(0, retained) / 1024);
+    }
+
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getCurrentThreadAllocatedBytes();
+        }
+        return 0; // not a HotSpot JVM; only timings and retained heap are meaningful
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
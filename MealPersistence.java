@@ -4,10 +4,21 @@ import java.io.PrintWriter;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDate;
-import java.util.Map;
 
 public class MealPersistence {
+    public static final String HEADER = "date,meal,food,grams,cal_per_100g,calories,protein_g,carbs_g,fat_g";
+
+    // When set, saves are queued on this long-lived appender instead of opening the file each time
+    private static volatile CsvAppender appender;
+
+    public static void setAppender(CsvAppender a) { appender = a; }
+
     public static void saveMealsCSV(Iterable<Meal> meals, String fileName) {
+        CsvAppender a = appender;
+        if (a != null) {
+            a.appendMeals(meals, fileName);
+            return;
+        }
         try {
             ensureParentDir(fileName);
             boolean newFile = Files.notExists(Path.of(fileName));
@@ -16,25 +27,9 @@ public class MealPersistence {
                  var out = new PrintWriter(bw)) {
 
                 if (newFile) {
-                    out.println("date,meal,food,grams,cal_per_100g,calories,protein_g,carbs_g,fat_g");
-                }
-
-                for (Meal meal : meals) {
-                    LocalDate date = meal.getDate();
-                    for (Map.Entry<FoodItem, Double> e : meal.getItems().entrySet()) {
-                        FoodItem fi = e.getKey();
-                        double grams = e.getValue();
-                        double factor = grams / 100.0;
-                        double cal = fi.getCaloriesPer100g() * factor;
-                        double p = fi.getProteinPer100g() * factor;
-                        double c = fi.getCarbsPer100g() * factor;
-                        double f = fi.getFatPer100g() * factor;
-
-                        out.printf("%s,%s,%s,%.0f,%.0f,%.0f,%.1f,%.1f,%.1f%n",
-                                date, csv(meal.getName()), csv(fi.getName()), grams,
-                                fi.getCaloriesPer100g(), cal, p, c, f);
-                    }
+                    out.println(HEADER);
                 }
+                writeRows(meals, out);
             }
             System.out.println("✅ Meals saved to CSV: " + fileName);
         } catch (Exception ex) {
@@ -42,6 +37,26 @@ public class MealPersistence {
         }
     }
 
+    /** One CSV line per food item, without the header. */
+    static void writeRows(Iterable<Meal> meals, PrintWriter out) {
+        for (Meal meal : meals) {
+            LocalDate date = meal.getDate();
+            for (int i = 0; i < meal.itemCount(); i++) {
+                FoodItem fi = meal.foodAt(i);
+                double grams = meal.gramsAt(i);
+                double factor = grams / 100.0;
+                double cal = fi.getCaloriesPer100g() * factor;
+                double p = fi.getProteinPer100g() * factor;
+                double c = fi.getCarbsPer100g() * factor;
+                double f = fi.getFatPer100g() * factor;
+
+                out.printf("%s,%s,%s,%.0f,%.0f,%.0f,%.1f,%.1f,%.1f%n",
+                        date, csv(meal.getName()), csv(fi.getName()), grams,
+                        fi.getCaloriesPer100g(), cal, p, c, f);
+            }
+        }
+    }
+
     private static void ensureParentDir(String fileName) throws Exception {
         Path p = Path.of(fileName).toAbsolutePath();
         if (p.getParent() != null && Files.notExists(p.getParent())) {
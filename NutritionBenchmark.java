@@ -0,0 +1,120 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares macro totals computed one FoodItem at a time (four getters and a
+ * division per item, as the per-meal code does) with NutritionTable's
+ * struct-of-arrays batch paths, over years of logged meals. Checks that they
+ * agree, then times per-meal totals (per-object, batch including flattening
+ * the meals into Rows, batch over prebuilt Rows) and a whole-period total
+ * (per-object vs periodTotals).
+ * Plain main() harness; there is no JMH setup in this tree.
+ *
+ * Run: java NutritionBenchmark [days] [foods]
+ */
+public class NutritionBenchmark {
+
+    public static void main(String[] args) {
+        int days = args.length > 0 ? Integer.parseInt(args[0]) : 3 * 365;
+        int foodCount = args.length > 1 ? Integer.parseInt(args[1]) : 5_000;
+        Random rnd = new Random(11);
+
+        List<FoodItem> foods = new ArrayList<>(foodCount);
+        for (int i = 0; i < foodCount; i++) {
+            foods.add(new FoodItem("Food " + i, rnd.nextDouble() * 600, rnd.nextDouble() * 40,
+                    rnd.nextDouble() * 80, rnd.nextDouble() * 50));
+        }
+        List<Meal> meals = new ArrayList<>();
+        for (int d = 0; d < days; d++) {
+            for (int m = 0; m < 5; m++) {
+                Meal meal = new Meal("Meal " + m);
+                int items = 3 + rnd.nextInt(10);
+                for (int i = 0; i < items; i++) {
+                    meal.addFood(foods.get(rnd.nextInt(foodCount)), 5 + rnd.nextInt(300));
+                }
+                meals.add(meal);
+            }
+        }
+        NutritionTable table = new NutritionTable(foods);
+        NutritionTable.Rows rows = NutritionTable.Rows.perMeal(meals);
+        System.out.printf("%,d meals, %,d food rows, %,d foods%n", meals.size(), rows.size(), foodCount);
+
+        double[] expected = perObject(meals);
+        NutritionTable.Totals t = table.totals(rows);
+        for (int i = 0; i < meals.size(); i++) {
+            if (Math.abs(t.calories[i] - expected[i * 4]) > 1e-9 * Math.max(1, expected[i * 4])
+                    || Math.abs(t.fat[i] - expected[i * 4 + 3]) > 1e-9 * Math.max(1, expected[i * 4 + 3])) {
+                System.out.println("Mismatch at meal " + i);
+                System.exit(1);
+            }
+        }
+
+        NutritionTable.Totals period = table.periodTotals(rows);
+        double all = 0;
+        for (int i = 0; i < meals.size(); i++) all += expected[i * 4];
+        if (Math.abs(period.calories[0] - all) > 1e-9 * all) {
+            System.out.println("Period total mismatch: " + period.calories[0] + " vs " + all);
+            System.exit(1);
+        }
+
+        double sink = 0;
+        for (int round = 0; round < 5; round++) {
+            int reps = 50;
+            long t0 = System.nanoTime();
+            for (int r = 0; r < reps; r++) sink += perObject(meals)[0];
+            long t1 = System.nanoTime();
+            for (int r = 0; r < reps; r++) sink += table.perMeal(meals).calories[0];
+            long t2 = System.nanoTime();
+            for (int r = 0; r < reps; r++) sink += table.totals(rows).calories[0];
+            long t3 = System.nanoTime();
+            for (int r = 0; r < reps; r++) sink += periodPerObject(meals);
+            long t4 = System.nanoTime();
+            for (int r = 0; r < reps; r++) sink += table.periodTotals(rows).calories[0];
+            long t5 = System.nanoTime();
+            double per = reps * (double) rows.size();
+            System.out.printf("round %d  per meal: per-object %5.2f  batch+flatten %5.2f  batch %5.2f"
+                            + "  | period: per-object %5.2f  periodTotals %5.2f  (ns/row)%n",
+                    round, (t1 - t0) / per, (t2 - t1) / per, (t3 - t2) / per, (t4 - t3) / per, (t5 - t4) / per);
+        }
+        if (sink == 42) System.out.println(); // keep the JIT from dropping the work
+    }
+
+    /** Calories + protein + carbs + fat over all meals, object by object. */
+    private static double periodPerObject(List<Meal> meals) {
+        double cal = 0, p = 0, c = 0, f = 0;
+        for (Meal meal : meals) {
+            for (int i = 0; i < meal.itemCount(); i++) {
+                FoodItem fi = meal.foodAt(i);
+                double factor = meal.gramsAt(i) / 100.0;
+                cal += fi.getCaloriesPer100g() * factor;
+                p += fi.getProteinPer100g() * factor;
+                c += fi.getCarbsPer100g() * factor;
+                f += fi.getFatPer100g() * factor;
+            }
+        }
+        return cal + p + c + f;
+    }
+
+    /** Calories, protein, carbs, fat per meal, object by object. */
+    private static double[] perObject(List<Meal> meals) {
+        double[] out = new double[meals.size() * 4];
+        for (int m = 0; m < meals.size(); m++) {
+            Meal meal = meals.get(m);
+            double cal = 0, p = 0, c = 0, f = 0;
+            for (int i = 0; i < meal.itemCount(); i++) {
+                FoodItem fi = meal.foodAt(i);
+                double factor = meal.gramsAt(i) / 100.0;
+                cal += fi.getCaloriesPer100g() * factor;
+                p += fi.getProteinPer100g() * factor;
+                c += fi.getCarbsPer100g() * factor;
+                f += fi.getFatPer100g() * factor;
+            }
+            out[m * 4] = cal;
+            out[m * 4 + 1] = p;
+            out[m * 4 + 2] = c;
+            out[m * 4 + 3] = f;
+        }
+        return out;
+    }
+}
@@ -0,0 +1,303 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Struct-of-arrays copy of food nutrition values (per 100 g), one slot per
+ * FoodItem index, plus batch macro totals over many meals or days.
+ *
+ * A batch is first flattened into Rows (food index and grams per row, plus
+ * where each group ends). Two ways to total it:
+ *  - totals(rows): one result per group (meal, day, ...). Each row looks its
+ *    food up by index; that is a gather, which C2 does not vectorize, so this
+ *    is about as fast as the per-object loop while the columns stay in cache
+ *    (four columns mean up to four cache misses per row on a huge catalog).
+ *  - periodTotals(rows): one result for all rows (a week, a month, all of
+ *    history). Grams are first summed per food, then each column is walked
+ *    once with unit stride over the range of foods used; that loop is plain
+ *    multiply-adds over contiguous arrays, which C2 compiles to tight
+ *    (SIMD-friendly) code. When rows outnumber distinct foods it is a few
+ *    times faster than the per-object loop.
+ *
+ * Foods are added the first time a batch sees them, so a table built from
+ * the catalog also works for foods that came from imported history.
+ */
+public class NutritionTable {
+
+    // Replaced as a whole when it grows, so readers never see a half-filled copy
+    private volatile Columns cols = new Columns(0);
+
+    public NutritionTable() {}
+
+    public NutritionTable(Iterable<FoodItem> foods) {
+        List<FoodItem> list = new ArrayList<>();
+        for (FoodItem fi : foods) list.add(fi);
+        addAll(list);
+    }
+
+    /** Copies fi's values into its slot. A slot is one name and set of values, so re-adding is harmless. */
+    public void add(FoodItem fi) {
+        addAll(List.of(fi));
+    }
+
+    /** Adds many foods with one copy of the columns. */
+    public synchronized void addAll(Collection<FoodItem> foods) {
+        Columns c = cols;
+        int max = c.size();
+        boolean missing = false;
+        for (FoodItem fi : foods) {
+            if (!c.has(fi.getIndex())) missing = true;
+            max = Math.max(max, fi.getIndex() + 1);
+        }
+        if (!missing) return;
+        // copy-on-write: readers may still be walking the old columns
+        c = c.copy(max > c.size() ? Math.max(max, c.size() * 2) : max);
+        for (FoodItem fi : foods) {
+            int i = fi.getIndex();
+            if (c.present[i]) continue;
+            c.kcal[i] = fi.getCaloriesPer100g();
+            c.protein[i] = fi.getProteinPer100g();
+            c.carbs[i] = fi.getCarbsPer100g();
+            c.fat[i] = fi.getFatPer100g();
+            c.present[i] = true;
+        }
+        cols = c;
+    }
+
+    public boolean contains(FoodItem fi) {
+        return cols.has(fi.getIndex());
+    }
+
+    /** Totals for each meal; group i is meals.get(i). */
+    public Totals perMeal(List<Meal> meals) {
+        return totals(Rows.perMeal(meals));
+    }
+
+    /** Totals for each list of meals, e.g. HistoryLoader's mealsByDay values in day order. */
+    public Totals perGroup(List<? extends Iterable<Meal>> groups) {
+        return totals(Rows.perGroup(groups));
+    }
+
+    /** Totals of each group of prepared rows; build Rows once to total the same batch repeatedly. */
+    public Totals totals(Rows rows) {
+        Columns c = columnsFor(rows);
+        Totals t = new Totals(rows.groups);
+        // locals, so the loop body is just array loads and multiply-adds
+        int[] food = rows.food;
+        double[] grams = rows.grams;
+        double[] kcal = c.kcal, protein = c.protein, carbs = c.carbs, fat = c.fat;
+        int i = 0;
+        for (int g = 0; g < rows.groups; g++) {
+            int end = rows.groupEnd[g];
+            double sk = 0, sp = 0, sc = 0, sf = 0;
+            for (; i < end; i++) {
+                int f = food[i];
+                double s = grams[i] / 100.0;
+                sk += kcal[f] * s;
+                sp += protein[f] * s;
+                sc += carbs[f] * s;
+                sf += fat[f] * s;
+            }
+            t.calories[g] = sk;
+            t.protein[g] = sp;
+            t.carbs[g] = sc;
+            t.fat[g] = sf;
+        }
+        return t;
+    }
+
+    /** One total over every row, ignoring the groups. Falls back to the row loop when foods are sparse. */
+    public Totals periodTotals(Rows rows) {
+        Columns c = columnsFor(rows);
+        Totals t = new Totals(1);
+        if (rows.size == 0) return t;
+
+        int lo = rows.minFood;
+        int n = rows.maxFood - lo + 1;
+        if (n > rows.size) {
+            // foods spread thinly over a big catalog: the dense pass would mostly multiply zeros
+            return totals(new Rows(rows));
+        }
+        double[] gramsByFood = new double[n];
+        for (int i = 0; i < rows.size; i++) {
+            gramsByFood[rows.food[i] - lo] += rows.grams[i];
+        }
+        for (int i = 0; i < n; i++) gramsByFood[i] /= 100.0;
+
+        // dense, unit-stride passes over the columns
+        t.calories[0] = dot(gramsByFood, c.kcal, lo, n);
+        t.protein[0] = dot(gramsByFood, c.protein, lo, n);
+        t.carbs[0] = dot(gramsByFood, c.carbs, lo, n);
+        t.fat[0] = dot(gramsByFood, c.fat, lo, n);
+        return t;
+    }
+
+    private static double dot(double[] a, double[] column, int off, int n) {
+        // four partial sums break the add dependency chain
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (; i + 3 < n; i += 4) {
+            s0 += a[i] * column[off + i];
+            s1 += a[i + 1] * column[off + i + 1];
+            s2 += a[i + 2] * column[off + i + 2];
+            s3 += a[i + 3] * column[off + i + 3];
+        }
+        for (; i < n; i++) s0 += a[i] * column[off + i];
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /** Current columns, after adding any of the rows' foods not in the table yet. */
+    private Columns columnsFor(Rows rows) {
+        Columns c = cols;
+        for (FoodItem fi : rows.foods) {
+            if (!c.has(fi.getIndex())) {
+                addAll(Arrays.asList(rows.foods));
+                return cols;
+            }
+        }
+        return c;
+    }
+
+    /** Macro totals per group, indexed like the input. */
+    public static class Totals {
+        public final int groups;
+        public final double[] calories, protein, carbs, fat;
+
+        Totals(int groups) {
+            this.groups = groups;
+            calories = new double[groups];
+            protein = new double[groups];
+            carbs = new double[groups];
+            fat = new double[groups];
+        }
+    }
+
+    /** A batch flattened to one row per (meal, food): food index, grams, and where each group ends. */
+    public static class Rows {
+        final int[] food;
+        final double[] grams;
+        final int size;
+        final int[] groupEnd; // exclusive row end of each group
+        final int groups;
+        final FoodItem[] foods; // distinct foods, for filling the table
+        final int minFood, maxFood;
+
+        private Rows(Builder b) {
+            food = b.food;
+            grams = b.grams;
+            size = b.size;
+            groupEnd = b.groupEnd;
+            groups = b.groups;
+            foods = Arrays.copyOf(b.foods, b.foodCount);
+            minFood = b.minFood;
+            maxFood = b.maxFood;
+        }
+
+        /** The same rows as a single group. */
+        private Rows(Rows from) {
+            food = from.food;
+            grams = from.grams;
+            size = from.size;
+            groupEnd = new int[] {from.size};
+            groups = 1;
+            foods = from.foods;
+            minFood = from.minFood;
+            maxFood = from.maxFood;
+        }
+
+        public static Rows perMeal(List<Meal> meals) {
+            Builder b = new Builder(meals.size());
+            for (Meal m : meals) {
+                b.add(m);
+                b.groupEnd[b.groups++] = b.size;
+            }
+            return new Rows(b);
+        }
+
+        public static Rows perGroup(List<? extends Iterable<Meal>> groups) {
+            Builder b = new Builder(groups.size());
+            for (Iterable<Meal> group : groups) {
+                for (Meal m : group) b.add(m);
+                b.groupEnd[b.groups++] = b.size;
+            }
+            return new Rows(b);
+        }
+
+        public int size() { return size; }
+
+        private static class Builder {
+            int[] food = new int[1024];
+            double[] grams = new double[1024];
+            int size;
+            final int[] groupEnd;
+            int groups;
+            FoodItem[] foods = new FoodItem[64];
+            int foodCount;
+            long[] seen = new long[64]; // bit per FoodItem index
+            int minFood = Integer.MAX_VALUE, maxFood = -1;
+
+            Builder(int groups) {
+                groupEnd = new int[groups];
+            }
+
+            void add(Meal m) {
+                int n = m.itemCount();
+                if (size + n > food.length) {
+                    int cap = Math.max(size + n, food.length * 2);
+                    food = Arrays.copyOf(food, cap);
+                    grams = Arrays.copyOf(grams, cap);
+                }
+                for (int i = 0; i < n; i++) {
+                    FoodItem fi = m.foodAt(i);
+                    int f = fi.getIndex();
+                    int word = f >>> 6;
+                    if (word >= seen.length) seen = Arrays.copyOf(seen, Math.max(word + 1, seen.length * 2));
+                    if ((seen[word] & (1L << f)) == 0) {
+                        seen[word] |= 1L << f;
+                        if (foodCount == foods.length) foods = Arrays.copyOf(foods, foodCount * 2);
+                        foods[foodCount++] = fi;
+                        if (f < minFood) minFood = f;
+                        if (f > maxFood) maxFood = f;
+                    }
+                    food[size] = f;
+                    grams[size] = m.gramsAt(i);
+                    size++;
+                }
+            }
+        }
+    }
+
+    private static class Columns {
+        final double[] kcal, protein, carbs, fat;
+        final boolean[] present;
+
+        Columns(int n) {
+            kcal = new double[n];
+            protein = new double[n];
+            carbs = new double[n];
+            fat = new double[n];
+            present = new boolean[n];
+        }
+
+        private Columns(Columns from, int n) {
+            kcal = Arrays.copyOf(from.kcal, n);
+            protein = Arrays.copyOf(from.protein, n);
+            carbs = Arrays.copyOf(from.carbs, n);
+            fat = Arrays.copyOf(from.fat, n);
+            present = Arrays.copyOf(from.present, n);
+        }
+
+        int size() {
+            return present.length;
+        }
+
+        boolean has(int i) {
+            return i < present.length && present[i];
+        }
+
+        Columns copy(int n) {
+            return new Columns(this, n);
+        }
+    }
+}
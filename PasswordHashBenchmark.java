@@ -0,0 +1,85 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Logins per second at several PBKDF2 costs, to pick passwords.iterations
+ * for a machine. For each cost it registers a few users in a temporary
+ * UserStore, then times logins one after another on this thread and all at
+ * once through loginAsync (the hashing pool, one thread per core).
+ *
+ * A common target is 100-250 ms per hash on the server; more than that
+ * makes every login (and every account created) feel slow.
+ *
+ * Run: java PasswordHashBenchmark [iterations...]
+ */
+public class PasswordHashBenchmark {
+
+    private static final int[] DEFAULT_COSTS = {10_000, 50_000, 100_000, 210_000, 600_000};
+    private static final double SECONDS_PER_COST = 2.0;
+
+    public static void main(String[] args) throws Exception {
+        int[] costs = DEFAULT_COSTS;
+        if (args.length > 0) {
+            costs = new int[args.length];
+            for (int i = 0; i < args.length; i++) costs[i] = Integer.parseInt(args[i]);
+        }
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.printf("cores=%d%n", cores);
+
+        // warm up the HMAC code so the first cost is not measured cold
+        PasswordHasher warm = new PasswordHasher(10_000);
+        long warmEnd = System.nanoTime() + 2_000_000_000L;
+        while (System.nanoTime() < warmEnd) warm.verify("pw", warm.hash("pw"));
+
+        for (int cost : costs) {
+            PasswordHasher hasher = new PasswordHasher(cost, cores, 4096);
+            UserStore store = newStore(hasher);
+
+            // one hash to size the run
+            long t0 = System.nanoTime();
+            store.register(new User("warmup@example.com", "warmup", "pw-warmup"));
+            double oneHash = (System.nanoTime() - t0) / 1e9;
+            int n = (int) Math.max(4, Math.min(2_000, SECONDS_PER_COST / oneHash / 2));
+
+            int users = Math.min(n, 16);
+            for (int i = 0; i < users; i++) {
+                store.register(new User(email(i), "user" + i, "pw" + i));
+            }
+
+            long start = System.nanoTime();
+            int ok = 0;
+            for (int i = 0; i < n; i++) {
+                if (store.login(email(i % users), "pw" + (i % users)) != null) ok++;
+            }
+            double serial = (System.nanoTime() - start) / 1e9;
+
+            start = System.nanoTime();
+            List<CompletableFuture<User>> pending = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                pending.add(store.loginAsync(email(i % users), "pw" + (i % users)));
+            }
+            for (CompletableFuture<User> f : pending) {
+                if (f.get() != null) ok++;
+            }
+            double pooled = (System.nanoTime() - start) / 1e9;
+
+            System.out.printf("iterations=%,8d  %7.1f ms/login  serial %7.1f logins/s  pool %7.1f logins/s  (%d/%d ok)%n",
+                    cost, serial / n * 1000, n / serial, n / pooled, ok, n * 2);
+        }
+    }
+
+    private static UserStore newStore(PasswordHasher hasher) throws IOException {
+        File tmp = File.createTempFile("users-hash-bench", ".csv");
+        tmp.delete();
+        tmp.deleteOnExit();
+        new File(tmp.getPath() + ".log").deleteOnExit();
+        return new UserStore(tmp.getPath(), hasher);
+    }
+
+    private static String email(int i) {
+        return "user" + i + "@example.com";
+    }
+}
@@ -0,0 +1,166 @@
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.security.spec.KeySpec;
+import java.util.Base64;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * Salted PBKDF2 (HMAC-SHA256) password hashes.
+ *
+ * Stored form: pbkdf2$<iterations>$<salt base64>$<hash base64>. Anything
+ * else is taken to be a plaintext password from before hashing was added;
+ * verify() still accepts it and needsRehash() reports it, so the store can
+ * replace it with a hash on the next successful login. Raising the
+ * iteration count later upgrades existing hashes the same way.
+ *
+ * Each hash costs `iterations` HMAC rounds, on purpose. Slow calls should go
+ * through submit(), which runs them on a small fixed pool with a bounded
+ * queue instead of on the EDT or an HTTP dispatcher thread. When the queue is
+ * full the returned future fails with RejectedExecutionException, so a flood
+ * of logins is turned away instead of piling up.
+ *
+ * The cost comes from the system property passwords.iterations (default
+ * DEFAULT_ITERATIONS); run PasswordHashBenchmark to pick one for the machine.
+ */
+public class PasswordHasher {
+
+    public static final int DEFAULT_ITERATIONS = 210_000;
+    private static final String PREFIX = "pbkdf2$";
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static volatile PasswordHasher shared;
+
+    private final int iterations;
+    private final int threads;
+    private final int queueSize;
+    private volatile ThreadPoolExecutor pool; // started on first submit()
+
+    public PasswordHasher(int iterations) {
+        this(iterations, Runtime.getRuntime().availableProcessors(), 256);
+    }
+
+    public PasswordHasher(int iterations, int threads, int queueSize) {
+        if (iterations < 1) throw new IllegalArgumentException("iterations must be >= 1");
+        if (threads < 1) throw new IllegalArgumentException("threads must be >= 1");
+        this.iterations = iterations;
+        this.threads = threads;
+        this.queueSize = queueSize;
+    }
+
+    /** The process-wide hasher, configured from system properties. */
+    public static PasswordHasher shared() {
+        PasswordHasher h = shared;
+        if (h == null) {
+            synchronized (PasswordHasher.class) {
+                h = shared;
+                if (h == null) {
+                    h = new PasswordHasher(
+                            Integer.getInteger("passwords.iterations", DEFAULT_ITERATIONS),
+                            Integer.getInteger("passwords.threads", Runtime.getRuntime().availableProcessors()),
+                            Integer.getInteger("passwords.queue", 256));
+                    shared = h;
+                }
+            }
+        }
+        return h;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    // ===== Hashing =====
+
+    /** Fresh salt, current cost. */
+    public String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        byte[] dk = derive(password, salt, iterations);
+        Base64.Encoder b64 = Base64.getEncoder();
+        return PREFIX + iterations + "$" + b64.encodeToString(salt) + "$" + b64.encodeToString(dk);
+    }
+
+    /** True if the password matches the stored hash (or legacy plaintext). Constant time per form. */
+    public boolean verify(String password, String stored) {
+        if (password == null || stored == null) return false;
+        if (!isHashed(stored)) {
+            return MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8),
+                    stored.getBytes(StandardCharsets.UTF_8));
+        }
+        String[] p = stored.split("\\$");
+        if (p.length != 4) return false;
+        try {
+            int iter = Integer.parseInt(p[1]);
+            byte[] salt = Base64.getDecoder().decode(p[2]);
+            byte[] expected = Base64.getDecoder().decode(p[3]);
+            if (iter < 1) return false;
+            return MessageDigest.isEqual(derive(password, salt, iter), expected);
+        } catch (IllegalArgumentException e) {
+            return false; // bad number or base64: treat as no match
+        }
+    }
+
+    /** Plaintext, or hashed at a different cost than this hasher's. */
+    public boolean needsRehash(String stored) {
+        if (!isHashed(stored)) return true;
+        int end = stored.indexOf('$', PREFIX.length());
+        return end < 0 || !stored.substring(PREFIX.length(), end).equals(Integer.toString(iterations));
+    }
+
+    public static boolean isHashed(String stored) {
+        return stored != null && stored.startsWith(PREFIX);
+    }
+
+    private static byte[] derive(String password, byte[] salt, int iterations) {
+        KeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " not available", e);
+        }
+    }
+
+    // ===== Worker pool =====
+
+    /** Runs work on the hashing pool. Fails with RejectedExecutionException when the queue is full. */
+    public <T> CompletableFuture<T> submit(Supplier<T> work) {
+        try {
+            return CompletableFuture.supplyAsync(work, pool());
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private ThreadPoolExecutor pool() {
+        ThreadPoolExecutor p = pool;
+        if (p == null) {
+            synchronized (this) {
+                p = pool;
+                if (p == null) {
+                    AtomicInteger n = new AtomicInteger();
+                    p = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                            new ArrayBlockingQueue<>(Math.max(1, queueSize)), r -> {
+                                Thread t = new Thread(r, "password-hash-" + n.incrementAndGet());
+                                t.setDaemon(true);
+                                return t;
+                            });
+                    pool = p;
+                }
+            }
+        }
+        return p;
+    }
+}
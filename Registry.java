@@ -0,0 +1,126 @@
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToIntFunction;
+
+/**
+ * Stable identity for exercises and foods.
+ *
+ * An item's identity is its name (trimmed, inner whitespace collapsed, case
+ * ignored) plus a variant string holding whatever else decides how it
+ * behaves: the kind and MET of an exercise, the nutrition values of a food.
+ * Every distinct identity gets a compact id 0, 1, 2, ... the first time it
+ * is seen and keeps it for the life of the process. Exercise and FoodItem
+ * take their id from here when constructed, so two identical "Bench Press"
+ * objects are equal, land on the same key in WorkoutSession.sets and on the
+ * same slot of any array indexed by id (NutritionTable, Meal). A cardio and
+ * a strength "Running", or two "Apple"s with different values, stay apart.
+ *
+ * Names get their own dense ids too (nameIdFor), for tables that group by
+ * name whatever the variant, like ExerciseStatsIndex.
+ *
+ * intern() additionally remembers the first object registered for an id
+ * and hands that one back afterwards, so reloading history does not keep
+ * a fresh copy of every exercise and food around.
+ *
+ * Ids are not persisted: files store names and values and map them back
+ * when they are read.
+ */
+public final class Registry<T> {
+
+    public static final Registry<Exercise> EXERCISES = new Registry<>(Exercise::getId);
+    public static final Registry<FoodItem> FOODS = new Registry<>(FoodItem::getIndex);
+
+    private final ToIntFunction<T> idOf;
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();     // identity -> id
+    private final Map<String, Integer> nameIds = new ConcurrentHashMap<>(); // name key -> name id
+    // indexed by id; replaced as a whole when they grow, written under the lock
+    private volatile String[] names = new String[64];
+    private volatile Object[] canonical = new Object[64];
+    private int size; // guarded by this
+    private int nameCount; // guarded by nameIds
+
+    private Registry(ToIntFunction<T> idOf) {
+        this.idOf = idOf;
+    }
+
+    /** The id of (name, variant), assigned now if the pair is new. */
+    public int idFor(String name, String variant) {
+        String k = key(name) + '\u0000' + variant;
+        Integer id = ids.get(k);
+        if (id != null) return id;
+        synchronized (this) {
+            id = ids.get(k);
+            if (id != null) return id;
+            id = size++;
+            if (id == names.length) {
+                names = Arrays.copyOf(names, id * 2);
+                canonical = Arrays.copyOf(canonical, id * 2);
+            }
+            names[id] = name;
+            ids.put(k, id); // last, so a lock-free reader never sees an id without its name
+            return id;
+        }
+    }
+
+    /** The name's id, shared by every variant of it; assigned now if the name is new. */
+    public int nameIdFor(String name) {
+        String k = key(name);
+        Integer id = nameIds.get(k);
+        if (id != null) return id;
+        synchronized (nameIds) {
+            id = nameIds.get(k);
+            if (id == null) {
+                id = nameCount++;
+                nameIds.put(k, id);
+            }
+            return id;
+        }
+    }
+
+    /** The name's id, or -1 if it has never been seen. */
+    public int nameIdOf(String name) {
+        Integer id = nameIds.get(key(name));
+        return id != null ? id : -1;
+    }
+
+    /** The object first interned under item's id; item itself if it is the first. */
+    @SuppressWarnings("unchecked")
+    public T intern(T item) {
+        int id = idOf.applyAsInt(item);
+        Object[] c = canonical;
+        if (id < c.length && c[id] != null) return (T) c[id];
+        synchronized (this) {
+            c = canonical;
+            if (c[id] == null) c[id] = item;
+            return (T) c[id];
+        }
+    }
+
+    /** The interned object with this id, or null if none was interned. */
+    @SuppressWarnings("unchecked")
+    public T byId(int id) {
+        Object[] c = canonical;
+        return id >= 0 && id < c.length ? (T) c[id] : null;
+    }
+
+    /** The name an id was first assigned for. */
+    public String nameOf(int id) {
+        String[] n = names;
+        return id >= 0 && id < n.length ? n[id] : null;
+    }
+
+    /** Number of ids handed out; every id is below this. */
+    public synchronized int size() {
+        return size;
+    }
+
+    /** Normalized form names are compared in. */
+    public static String key(String name) {
+        if (name == null) return "";
+        String s = name.trim().toLowerCase(Locale.ROOT);
+        if (s.indexOf("  ") < 0 && s.indexOf('\t') < 0) return s;
+        return s.replaceAll("\\s+", " ");
+    }
+}
@@ -0,0 +1,86 @@
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Checks the running totals in WorkoutSession and Meal against a full
+ * recompute over random sessions and meals, and NutritionTable's totals
+ * against the meals'. Exercises and foods include same-name pairs that
+ * differ in kind or values, which must stay separate. Exits with status 1
+ * on the first mismatch.
+ *
+ * Run: java RunningTotalsCheck [rounds] [seed]
+ */
+public class RunningTotalsCheck {
+    private static final double EPS = 1e-9; // relative; sums are added in a different order
+
+    public static void main(String[] args) {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+        Random rnd = new Random(seed);
+
+        Exercise[] exercises = {
+            new StrengthExercise("Bench Press", "Chest", "", true),
+            new StrengthExercise("Push-up", "Chest", "", false),
+            new CardioExercise("Treadmill Run", "Cardio", "", 8.0),
+            new CardioExercise("Rowing", "Cardio", "", 7.0),
+            new StrengthExercise("Rowing", "Back", "", true),   // same name, other kind
+            new CardioExercise("Treadmill Run", "Cardio", "", 11.0),
+        };
+        List<FoodItem> foods = new ArrayList<>(new FoodCatalog().all());
+        foods.add(new FoodItem("Apple", 52, 0.3, 14, 0.2));
+        foods.add(new FoodItem("apple ", 95, 0.5, 25, 0.3)); // same name, other values
+        // one table for every round, so slots filled by earlier meals are reused
+        NutritionTable table = new NutritionTable();
+
+        for (int round = 0; round < rounds; round++) {
+            WorkoutSession session = new Workout("Random", DayOfWeek.MONDAY).startSession();
+            Meal meal = new Meal("Random");
+            int n = rnd.nextInt(200);
+            for (int i = 0; i < n; i++) {
+                session.addSet(exercises[rnd.nextInt(exercises.length)],
+                        new SetEntry(i + 1, rnd.nextInt(30), rnd.nextDouble() * 200, rnd.nextInt(3600)));
+                // repeats of the same food exercise the merge path
+                meal.addFood(foods.get(rnd.nextInt(foods.size())), 1 + rnd.nextDouble() * 400);
+            }
+
+            double cal = 0;
+            for (Map.Entry<Exercise, List<SetEntry>> e : session.getSets().entrySet()) {
+                for (SetEntry s : e.getValue()) cal += e.getKey().estimateCalories(s);
+            }
+            check("session calories", round, seed, session.totalCalories(), cal);
+
+            double mc = 0, p = 0, c = 0, f = 0;
+            for (Map.Entry<FoodItem, Double> e : meal.getItems().entrySet()) {
+                double g = e.getValue() / 100.0;
+                FoodItem fi = e.getKey();
+                mc += fi.getCaloriesPer100g() * g;
+                p += fi.getProteinPer100g() * g;
+                c += fi.getCarbsPer100g() * g;
+                f += fi.getFatPer100g() * g;
+            }
+            Meal.Macros m = meal.totalMacros();
+            check("meal calories", round, seed, meal.totalCalories(), mc);
+            check("meal protein", round, seed, m.protein, p);
+            check("meal carbs", round, seed, m.carbs, c);
+            check("meal fat", round, seed, m.fat, f);
+
+            NutritionTable.Totals t = table.perMeal(List.of(meal));
+            check("table calories", round, seed, t.calories[0], meal.totalCalories());
+            check("table protein", round, seed, t.protein[0], m.protein);
+            check("table carbs", round, seed, t.carbs[0], m.carbs);
+            check("table fat", round, seed, t.fat[0], m.fat);
+        }
+        System.out.println("OK: " + rounds + " random sessions and meals (seed " + seed + ")");
+    }
+
+    private static void check(String what, int round, long seed, double incremental, double recomputed) {
+        if (Math.abs(incremental - recomputed) > EPS * Math.max(1.0, Math.abs(recomputed))) {
+            System.out.printf("MISMATCH %s in round %d (seed %d): incremental=%.12f recomputed=%.12f%n",
+                    what, round, seed, incremental, recomputed);
+            System.exit(1);
+        }
+    }
+}
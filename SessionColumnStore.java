@@ -0,0 +1,345 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary, column-oriented store for workout history.
+ *
+ * A file is a sequence of segments, one per append() call. Each segment has
+ * its own string dictionary (workout titles and exercise names), then the
+ * session columns and then the set columns as plain int/long/double arrays.
+ * A set costs 24 bytes instead of a ~90 byte CSV line that repeats the title
+ * and both timestamps.
+ *
+ * read() maps the file and bulk-copies every column into primitive arrays,
+ * remapping the per-segment dictionaries onto one shared one. Scans (volume,
+ * calories, PRs, ...) can then walk the arrays without ever creating
+ * SetEntry objects.
+ *
+ * A segment cut short (a crash during append) can only be the last one; read()
+ * stops in front of it and returns the complete segments, and the next
+ * append() cuts it off before writing its own. Anything else that does not
+ * parse, including dictionary ids or row offsets out of range, is reported
+ * as an IOException naming the offset.
+ */
+public class SessionColumnStore {
+
+    private static final int MAGIC = 0x46534331; // "FSC1"
+
+    /** Append the sessions as one new segment at the end of the file. */
+    public static void append(Path file, List<WorkoutSession> sessions) throws IOException {
+        if (sessions.isEmpty()) return;
+
+        Map<String, Integer> dict = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        int rows = 0;
+        for (WorkoutSession s : sessions) {
+            intern(s.getWorkout().getTitle(), dict, strings);
+            for (Map.Entry<Exercise, List<SetEntry>> e : s.getSets().entrySet()) {
+                intern(e.getKey().getName(), dict, strings);
+                rows += e.getValue().size();
+            }
+        }
+
+        List<byte[]> encoded = new ArrayList<>(strings.size());
+        long size = 4 + 4;
+        for (String str : strings) {
+            byte[] b = str.getBytes(StandardCharsets.UTF_8);
+            encoded.add(b);
+            size += 4 + b.length;
+        }
+        int n = sessions.size();
+        size += 4 + 4 + n * (4L + 8 + 8 + 4) + rows * (4L + 4 + 4 + 8 + 4);
+        if (size > Integer.MAX_VALUE) throw new IOException("Segment too large; append fewer sessions at once");
+
+        ByteBuffer buf = ByteBuffer.allocate((int) size);
+        buf.putInt(MAGIC);
+        buf.putInt(encoded.size());
+        for (byte[] b : encoded) {
+            buf.putInt(b.length).put(b);
+        }
+        buf.putInt(n).putInt(rows);
+
+        // session columns
+        for (WorkoutSession s : sessions) buf.putInt(dict.get(s.getWorkout().getTitle()));
+        for (WorkoutSession s : sessions) buf.putLong(toMicros(s.getStart()));
+        for (WorkoutSession s : sessions) buf.putLong(toMicros(s.getEndOrNow()));
+        int first = 0;
+        for (WorkoutSession s : sessions) {
+            buf.putInt(first);
+            for (List<SetEntry> list : s.getSets().values()) first += list.size();
+        }
+
+        // set columns, one pass per column so each lands contiguously
+        for (WorkoutSession s : sessions)
+            for (Map.Entry<Exercise, List<SetEntry>> e : s.getSets().entrySet()) {
+                int id = dict.get(e.getKey().getName());
+                for (int i = 0; i < e.getValue().size(); i++) buf.putInt(id);
+            }
+        for (WorkoutSession s : sessions)
+            for (List<SetEntry> list : s.getSets().values())
+                for (SetEntry x : list) buf.putInt(x.getSetNumber());
+        for (WorkoutSession s : sessions)
+            for (List<SetEntry> list : s.getSets().values())
+                for (SetEntry x : list) buf.putInt(x.getReps());
+        for (WorkoutSession s : sessions)
+            for (List<SetEntry> list : s.getSets().values())
+                for (SetEntry x : list) buf.putDouble(x.getWeight());
+        for (WorkoutSession s : sessions)
+            for (List<SetEntry> list : s.getSets().values())
+                for (SetEntry x : list) buf.putInt(x.getDurationSeconds());
+
+        buf.flip();
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null && Files.notExists(parent)) {
+            Files.createDirectories(parent);
+        }
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // a torn last segment would otherwise sit in front of this one and hide it from read()
+            long end = completeLength(ch, file);
+            if (end < ch.size()) {
+                System.err.println("Dropping truncated last segment of " + file + " at offset " + end);
+                ch.truncate(end);
+            }
+            ch.position(end);
+            while (buf.hasRemaining()) ch.write(buf);
+        }
+    }
+
+    /** Length of the complete segments at the start of the file; walks the headers only. */
+    private static long completeLength(FileChannel ch, Path file) throws IOException {
+        if (ch.size() > Integer.MAX_VALUE) throw new IOException("Column file over 2 GB: " + file);
+        ByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        while (buf.hasRemaining()) {
+            int segment = buf.position();
+            Header h = header(buf, file);
+            if (h == null) return segment;
+            buf.position((int) (buf.position() + h.columnBytes()));
+        }
+        return buf.position();
+    }
+
+    /** Read every segment of the file into one set of columns. */
+    public static Columns read(Path file) throws IOException {
+        Columns c = new Columns();
+        if (Files.notExists(file)) return c;
+
+        ByteBuffer buf;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (ch.size() > Integer.MAX_VALUE) throw new IOException("Column file over 2 GB: " + file);
+            buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        }
+
+        while (buf.hasRemaining()) {
+            int segment = buf.position();
+            Header h = header(buf, file);
+            if (h == null) {
+                warnTruncated(file, segment);
+                break;
+            }
+            int n = h.sessions;
+            int rows = h.rows;
+            int dictSize = h.strings.size();
+
+            int s0 = c.sessionCount;
+            int r0 = c.rowCount;
+            c.ensure(s0 + n, r0 + rows);
+
+            buf.asIntBuffer().get(c.sessionTitle, s0, n);
+            buf.position(buf.position() + n * 4);
+            buf.asLongBuffer().get(c.sessionStart, s0, n);
+            buf.position(buf.position() + n * 8);
+            buf.asLongBuffer().get(c.sessionEnd, s0, n);
+            buf.position(buf.position() + n * 8);
+            buf.asIntBuffer().get(c.sessionFirstRow, s0, n);
+            buf.position(buf.position() + n * 4);
+
+            buf.asIntBuffer().get(c.exercise, r0, rows);
+            buf.position(buf.position() + rows * 4);
+            buf.asIntBuffer().get(c.setNumber, r0, rows);
+            buf.position(buf.position() + rows * 4);
+            buf.asIntBuffer().get(c.reps, r0, rows);
+            buf.position(buf.position() + rows * 4);
+            buf.asDoubleBuffer().get(c.weight, r0, rows);
+            buf.position(buf.position() + rows * 8);
+            buf.asIntBuffer().get(c.durationSec, r0, rows);
+            buf.position(buf.position() + rows * 4);
+
+            // check before anything is interned, so a bad segment leaves c as it was
+            for (int i = s0; i < s0 + n; i++) {
+                int first = c.sessionFirstRow[i];
+                if (c.sessionTitle[i] < 0 || c.sessionTitle[i] >= dictSize || first < 0 || first > rows
+                        || (i > s0 && first < c.sessionFirstRow[i - 1])) {
+                    throw new IOException("Corrupt column file " + file + " at offset " + segment
+                            + ": session " + (i - s0) + " out of range");
+                }
+            }
+            for (int i = r0; i < r0 + rows; i++) {
+                if (c.exercise[i] < 0 || c.exercise[i] >= dictSize) {
+                    throw new IOException("Corrupt column file " + file + " at offset " + segment
+                            + ": set " + (i - r0) + " has exercise id " + c.exercise[i]);
+                }
+            }
+
+            // segment-local ids and row offsets -> file-wide ones
+            int[] remap = new int[dictSize];
+            for (int i = 0; i < dictSize; i++) {
+                remap[i] = intern(h.strings.get(i), c.ids, c.strings);
+            }
+            for (int i = s0; i < s0 + n; i++) {
+                c.sessionTitle[i] = remap[c.sessionTitle[i]];
+                c.sessionFirstRow[i] += r0;
+            }
+            for (int i = r0; i < r0 + rows; i++) {
+                c.exercise[i] = remap[c.exercise[i]];
+            }
+            c.sessionCount += n;
+            c.rowCount += rows;
+        }
+        return c;
+    }
+
+    /**
+     * Struct-of-arrays view of the store. Set row i belongs to the session whose
+     * [sessionFirstRow, next session's first row) range contains i.
+     * Title and exercise columns hold ids into strings.
+     */
+    public static class Columns {
+        public final List<String> strings = new ArrayList<>();
+        private final Map<String, Integer> ids = new HashMap<>();
+        public int sessionCount;
+        public int[] sessionTitle = new int[0];
+        public long[] sessionStart = new long[0]; // epoch micros of the local date-time
+        public long[] sessionEnd = new long[0];
+        public int[] sessionFirstRow = new int[0];
+
+        public int rowCount;
+        public int[] exercise = new int[0];
+        public int[] setNumber = new int[0];
+        public int[] reps = new int[0];
+        public double[] weight = new double[0];
+        public int[] durationSec = new int[0];
+
+        public int sessionRowEnd(int session) {
+            return session + 1 < sessionCount ? sessionFirstRow[session + 1] : rowCount;
+        }
+
+        public LocalDateTime sessionStartTime(int session) {
+            return fromMicros(sessionStart[session]);
+        }
+
+        public LocalDateTime sessionEndTime(int session) {
+            return fromMicros(sessionEnd[session]);
+        }
+
+        /** Id of a title/exercise name, or -1 if it never occurs. */
+        public int idOf(String name) {
+            Integer id = ids.get(name);
+            return id != null ? id : -1;
+        }
+
+        /** Total reps x weight per exercise id, in one pass over three columns. */
+        public double[] volumeByExercise() {
+            double[] volume = new double[strings.size()];
+            for (int i = 0; i < rowCount; i++) {
+                volume[exercise[i]] += reps[i] * weight[i];
+            }
+            return volume;
+        }
+
+        private void ensure(int sessions, int rows) {
+            if (sessions > sessionTitle.length) {
+                int cap = Math.max(sessions, sessionTitle.length * 2);
+                sessionTitle = Arrays.copyOf(sessionTitle, cap);
+                sessionStart = Arrays.copyOf(sessionStart, cap);
+                sessionEnd = Arrays.copyOf(sessionEnd, cap);
+                sessionFirstRow = Arrays.copyOf(sessionFirstRow, cap);
+            }
+            if (rows > exercise.length) {
+                int cap = Math.max(rows, exercise.length * 2);
+                exercise = Arrays.copyOf(exercise, cap);
+                setNumber = Arrays.copyOf(setNumber, cap);
+                reps = Arrays.copyOf(reps, cap);
+                weight = Arrays.copyOf(weight, cap);
+                durationSec = Arrays.copyOf(durationSec, cap);
+            }
+        }
+    }
+
+    /** Dictionary and counts at the start of a segment. */
+    private static final class Header {
+        final List<String> strings = new ArrayList<>();
+        int sessions;
+        int rows;
+
+        long columnBytes() {
+            return sessions * (4L + 8 + 8 + 4) + rows * (4L + 4 + 4 + 8 + 4);
+        }
+    }
+
+    /**
+     * Reads the header of the segment at buf's position and leaves buf at its
+     * columns. Returns null if the segment (columns included) is cut short.
+     */
+    private static Header header(ByteBuffer buf, Path file) throws IOException {
+        int segment = buf.position();
+        if (buf.remaining() < 8) return null;
+        if (buf.getInt() != MAGIC) throw new IOException("Corrupt column file " + file + " at offset " + segment);
+
+        int dictSize = buf.getInt();
+        if (dictSize < 0) throw new IOException("Corrupt column file " + file + " at offset " + segment);
+        Header h = new Header();
+        for (int i = 0; i < dictSize; i++) {
+            if (buf.remaining() < 4) return null;
+            int len = buf.getInt();
+            if (len < 0) throw new IOException("Corrupt column file " + file + " at offset " + segment);
+            if (buf.remaining() < len) return null;
+            byte[] b = new byte[len];
+            buf.get(b);
+            h.strings.add(new String(b, StandardCharsets.UTF_8));
+        }
+        if (buf.remaining() < 8) return null;
+
+        h.sessions = buf.getInt();
+        h.rows = buf.getInt();
+        if (h.sessions < 0 || h.rows < 0) throw new IOException("Corrupt column file " + file + " at offset " + segment);
+        if (buf.remaining() < h.columnBytes()) return null;
+        return h;
+    }
+
+    // --- helpers
+    private static void warnTruncated(Path file, int offset) {
+        System.err.println("Ignoring truncated last segment of " + file + " at offset " + offset);
+    }
+
+    private static int intern(String s, Map<String, Integer> dict, List<String> strings) {
+        Integer id = dict.get(s);
+        if (id == null) {
+            id = strings.size();
+            dict.put(s, id);
+            strings.add(s);
+        }
+        return id;
+    }
+
+    private static long toMicros(LocalDateTime t) {
+        return t.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + t.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+}
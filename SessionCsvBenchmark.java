@@ -0,0 +1,85 @@
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.time.DayOfWeek;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares the old printf-per-set CSV path with SessionCsvWriter.
+ * First checks that both produce the same text, then times each on sessions
+ * with thousands of sets (output goes to a null Writer, so only formatting
+ * is measured). Plain main() harness; there is no JMH setup in this tree.
+ *
+ * Run: java SessionCsvBenchmark [setsPerExercise]
+ */
+public class SessionCsvBenchmark {
+    private static final DateTimeFormatter TS = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    public static void main(String[] args) throws IOException {
+        int setsPerExercise = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        WorkoutSession session = buildSession(setsPerExercise, new Random(42));
+        int rows = setsPerExercise * session.getSets().size();
+
+        StringWriter a = new StringWriter();
+        StringWriter b = new StringWriter();
+        writePrintf(session, new PrintWriter(a));
+        SessionCsvWriter w = new SessionCsvWriter(b);
+        w.write(session);
+        w.flush();
+        if (!a.toString().equals(b.toString())) {
+            System.out.println("Output differs from the printf path!");
+            System.exit(1);
+        }
+
+        for (int round = 0; round < 5; round++) {
+            long t0 = System.nanoTime();
+            for (int i = 0; i < 10; i++) writePrintf(session, new PrintWriter(Writer.nullWriter()));
+            long t1 = System.nanoTime();
+            for (int i = 0; i < 10; i++) new SessionCsvWriter(Writer.nullWriter()).write(session);
+            long t2 = System.nanoTime();
+            System.out.printf("round %d  rows=%,d  printf=%6.1f ns/row  streaming=%6.1f ns/row%n",
+                    round, rows, (t1 - t0) / (10.0 * rows), (t2 - t1) / (10.0 * rows));
+        }
+    }
+
+    /** The pre-SessionCsvWriter code path, kept here for comparison. */
+    private static void writePrintf(WorkoutSession session, PrintWriter out) {
+        for (Map.Entry<Exercise, List<SetEntry>> e : session.getSets().entrySet()) {
+            String exercise = e.getKey().getName();
+            for (SetEntry s : e.getValue()) {
+                out.printf(Locale.ROOT, "%s,%s,%s,%s,%d,%d,%.2f,%d%n",
+                        session.getWorkout().getTitle(),
+                        session.getStart().format(TS),
+                        session.getEndOrNow().format(TS),
+                        "\"" + exercise.replace("\"", "\"\"") + "\"",
+                        s.getSetNumber(), s.getReps(), s.getWeight(), s.getDurationSeconds());
+            }
+        }
+        out.flush();
+    }
+
+    private static WorkoutSession buildSession(int setsPerExercise, Random rnd) {
+        Workout w = new Workout("Push + Run", DayOfWeek.MONDAY);
+        Exercise[] exercises = {
+            new StrengthExercise("Bench Press", "Chest", "", true),
+            new StrengthExercise("Back Squat", "Legs", "", true),
+            new StrengthExercise("Deadlift", "Back", "", true),
+            new CardioExercise("Treadmill Run", "Cardio", "", 8.0),
+        };
+        WorkoutSession session = w.startSession();
+        for (Exercise e : exercises) {
+            for (int i = 1; i <= setsPerExercise; i++) {
+                // mostly gym-like weights, plus some awkward values near rounding ties
+                double weight = rnd.nextInt(10) == 0 ? rnd.nextInt(100000) / 1000.0 : rnd.nextInt(400) * 0.5;
+                session.addSet(e, new SetEntry(i, rnd.nextInt(20), weight, 30 + rnd.nextInt(120)));
+            }
+        }
+        session.complete();
+        return session;
+    }
+}
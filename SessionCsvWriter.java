@@ -0,0 +1,102 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streaming writer for the sessions CSV (one line per set).
+ * The "title,start,end," prefix is formatted once per session and the
+ * exercise name once per exercise; numbers are written digit by digit into
+ * a reused char buffer, so a row costs no format parsing and no boxing.
+ * Output matches the old printf("%s,%s,%s,%s,%d,%d,%.2f,%d%n") lines.
+ */
+public class SessionCsvWriter {
+    public static final String HEADER = "workoutTitle,start,end,exercise,setNumber,reps,weightKg,durationSec";
+    private static final DateTimeFormatter TS = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    private static final String NL = System.lineSeparator();
+
+    private final Writer out;
+    private char[] buf = new char[256];
+    private int len;
+
+    public SessionCsvWriter(Writer out) {
+        this.out = out;
+    }
+
+    public void writeHeader() throws IOException {
+        out.write(HEADER);
+        out.write(NL);
+    }
+
+    public void write(WorkoutSession session) throws IOException {
+        String prefix = session.getWorkout().getTitle() + ","
+                + session.getStart().format(TS) + ","
+                + session.getEndOrNow().format(TS) + ",";
+
+        for (Map.Entry<Exercise, List<SetEntry>> e : session.getSets().entrySet()) {
+            String exercise = csvEscape(e.getKey().getName());
+            for (SetEntry s : e.getValue()) {
+                len = 0;
+                append(prefix);
+                append(exercise);
+                append(',');
+                appendInt(s.getSetNumber());
+                append(',');
+                appendInt(s.getReps());
+                append(',');
+                appendFixed2(s.getWeight());
+                append(',');
+                appendInt(s.getDurationSeconds());
+                append(NL);
+                out.write(buf, 0, len);
+            }
+        }
+    }
+
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    // --- buffer helpers
+    private void ensure(int extra) {
+        if (len + extra > buf.length) {
+            char[] bigger = new char[Math.max(buf.length * 2, len + extra)];
+            System.arraycopy(buf, 0, bigger, 0, len);
+            buf = bigger;
+        }
+    }
+
+    private void append(char c) {
+        ensure(1);
+        buf[len++] = c;
+    }
+
+    private void append(String s) {
+        ensure(s.length());
+        s.getChars(0, s.length(), buf, len);
+        len += s.length();
+    }
+
+    private void appendInt(long v) {
+        if (v < 0) {
+            if (v == Long.MIN_VALUE) {
+                append(Long.toString(v));
+                return;
+            }
+            append('-');
+            v = -v;
+        }
+        ensure(20);
+        len = Decimals.writeLong(v, buf, len);
+    }
+
+    private void appendFixed2(double v) {
+        ensure(Decimals.MAX_CHARS);
+        len = Decimals.format(v, 2, buf, len);
+    }
+
+    static String csvEscape(String s) {
+        return "\"" + s.replace("\"", "\"\"") + "\"";
+    }
+}
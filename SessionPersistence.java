@@ -1,7 +1,9 @@
 import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
@@ -12,33 +14,29 @@ import java.util.Map;
 public class SessionPersistence {
     private static final DateTimeFormatter TS = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
 
+    // When set, CSV saves are queued on this long-lived appender instead of opening the file each time
+    private static volatile CsvAppender appender;
+
+    public static void setAppender(CsvAppender a) { appender = a; }
+
     /** Append a session to CSV. One line per set. Auto-creates parent folder. */
     public static void saveSessionAsCSV(WorkoutSession session, String fileName) {
+        CsvAppender a = appender;
+        if (a != null) {
+            a.appendSession(session, fileName);
+            return;
+        }
         try {
             ensureParentDir(fileName);
             boolean newFile = Files.notExists(Path.of(fileName));
             try (var fw = new FileWriter(fileName, true);
-                 var bw = new BufferedWriter(fw);
-                 var out = new PrintWriter(bw)) {
+                 var bw = new BufferedWriter(fw)) {
 
+                SessionCsvWriter out = new SessionCsvWriter(bw);
                 if (newFile) {
-                    out.println("workoutTitle,start,end,exercise,setNumber,reps,weightKg,durationSec");
-                }
-                for (Map.Entry<Exercise, List<SetEntry>> e : session.getSets().entrySet()) {
-                    String exercise = e.getKey().getName();
-                    for (SetEntry s : e.getValue()) {
-                        out.printf("%s,%s,%s,%s,%d,%d,%.2f,%d%n",
-                                session.getWorkout().getTitle(),
-                                session.getStart().format(TS),
-                                session.getEndOrNow().format(TS),
-                                csvEscape(exercise),
-                                s.getSetNumber(),
-                                s.getReps(),
-                                s.getWeight(),
-                                s.getDurationSeconds()
-                        );
-                    }
+                    out.writeHeader();
                 }
+                out.write(session);
             }
             System.out.println("✅ Session saved to CSV: " + fileName);
         } catch (IOException ex) {
@@ -48,45 +46,49 @@ public class SessionPersistence {
 
     /** Write the whole session as compact JSON (no libs). Auto-creates parent folder. */
     public static void saveSessionAsJSON(WorkoutSession session, String fileName) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("{");
-        sb.append(jsonPair("workoutTitle", session.getWorkout().getTitle())).append(",");
-        sb.append(jsonPair("start", session.getStart().format(TS))).append(",");
-        sb.append(jsonPair("end", session.getEndOrNow().format(TS))).append(",");
-        sb.append("\"totalCalories\":").append(String.format("%.0f", session.totalCalories())).append(",");
-        sb.append("\"sets\":[");
-        boolean firstE = true;
-        for (Map.Entry<Exercise, List<SetEntry>> e : session.getSets().entrySet()) {
-            if (!firstE) sb.append(",");
-            firstE = false;
-            sb.append("{");
-            sb.append(jsonPair("exercise", e.getKey().getName())).append(",");
-            sb.append("\"entries\":[");
-            boolean firstS = true;
-            for (SetEntry s : e.getValue()) {
-                if (!firstS) sb.append(",");
-                firstS = false;
-                sb.append("{")
-                  .append("\"setNumber\":").append(s.getSetNumber()).append(",")
-                  .append("\"reps\":").append(s.getReps()).append(",")
-                  .append("\"weightKg\":").append(String.format("%.1f", s.getWeight())).append(",")
-                  .append("\"durationSec\":").append(s.getDurationSeconds())
-                  .append("}");
-            }
-            sb.append("]}");
-        }
-        sb.append("]}");
-
         try {
             ensureParentDir(fileName);
-            Files.writeString(Path.of(fileName), sb.toString(),
-                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+            try (var os = Files.newOutputStream(Path.of(fileName),
+                         StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+                 var bw = new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8))) {
+                writeSessionJSON(session, bw);
+            }
             System.out.println("✅ Session saved to JSON: " + fileName);
         } catch (IOException ex) {
             System.out.println("JSON save failed: " + ex.getMessage());
         }
     }
 
+    /**
+     * Stream the session as JSON to any Writer (file, HTTP response, ...).
+     * Nothing is built up in memory, so very large sessions cost no more than small ones.
+     */
+    public static void writeSessionJSON(WorkoutSession session, Writer out) throws IOException {
+        JsonWriter json = new JsonWriter(out);
+        json.beginObject()
+            .name("workoutTitle").value(session.getWorkout().getTitle())
+            .name("start").value(session.getStart().format(TS))
+            .name("end").value(session.getEndOrNow().format(TS))
+            .name("totalCalories").value(session.totalCalories(), 0)
+            .name("sets").beginArray();
+        for (Map.Entry<Exercise, List<SetEntry>> e : session.getSets().entrySet()) {
+            json.beginObject()
+                .name("exercise").value(e.getKey().getName())
+                .name("entries").beginArray();
+            for (SetEntry s : e.getValue()) {
+                json.beginObject()
+                    .name("setNumber").value(s.getSetNumber())
+                    .name("reps").value(s.getReps())
+                    .name("weightKg").value(s.getWeight(), 1)
+                    .name("durationSec").value(s.getDurationSeconds())
+                    .endObject();
+            }
+            json.endArray().endObject();
+        }
+        json.endArray().endObject();
+        json.flush();
+    }
+
     // --- helpers
     private static void ensureParentDir(String fileName) throws IOException {
         Path p = Path.of(fileName).toAbsolutePath();
@@ -95,10 +97,4 @@ public class SessionPersistence {
             Files.createDirectories(parent);
         }
     }
-    private static String csvEscape(String s) {
-        return "\"" + s.replace("\"", "\"\"") + "\"";
-    }
-    private static String jsonPair(String k, String v) {
-        return "\"" + k + "\":\"" + v.replace("\"", "\\\"") + "\"";
-    }
 }
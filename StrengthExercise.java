@@ -2,7 +2,7 @@ public class StrengthExercise extends Exercise {
     private final boolean usesWeights;
 
     public StrengthExercise(String name, String targetMuscle, String instructions, boolean usesWeights) {
-        super(name, targetMuscle, instructions);
+        super(name, targetMuscle, instructions, "");
         this.usesWeights = usesWeights;
     }
 
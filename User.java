@@ -1,11 +1,12 @@
 public class User {
     private String email;
     private String username;
-    private String password;   // plain text (okay for school project)
+    private String password;   // PasswordHasher hash; plain text in rows written before hashing
     private String fullName;
     private double bodyWeightKg;
     private double heightCm;
     private String goal;
+    private int age;           // 0 = not given
 
     public User(String email,
                 String username,
@@ -55,6 +56,10 @@ public class User {
         return goal;
     }
 
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
     public void setFullName(String fullName) {
         this.fullName = fullName;
     }
@@ -71,8 +76,17 @@ public class User {
         this.goal = goal;
     }
 
+    public int getAge() {
+        return age;
+    }
+
+    public void setAge(int age) {
+        this.age = age;
+    }
+
     // ===== CSV helpers =====
-    // email;username;password;fullName;weightKg;heightCm;goal
+    // email;username;password;fullName;weightKg;heightCm;goal;age
+    // (age was added later; rows without it read as age 0)
     public String toCsvRow() {
         return escape(email) + ";" +
                escape(username) + ";" +
@@ -80,7 +94,8 @@ public class User {
                escape(fullName) + ";" +
                bodyWeightKg + ";" +
                heightCm + ";" +
-               escape(goal);
+               escape(goal) + ";" +
+               age;
     }
 
     public static User fromCsvRow(String line) {
@@ -95,7 +110,11 @@ public class User {
         double weight = Double.parseDouble(parts[4].isEmpty() ? "0" : parts[4]);
         double height = Double.parseDouble(parts[5].isEmpty() ? "0" : parts[5]);
         String goal = unescape(parts[6]);
-        return new User(email, username, password, fullName, weight, height, goal);
+        User u = new User(email, username, password, fullName, weight, height, goal);
+        if (parts.length > 7 && !parts[7].isEmpty()) {
+            u.age = Integer.parseInt(parts[7]);
+        }
+        return u;
     }
 
     // Simple escaping so we can safely store ; and \ in text
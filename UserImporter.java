@@ -0,0 +1,409 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Bulk import of users from a CSV exported by another system.
+ *
+ * The file is read in chunks of lines. Each chunk is parsed and validated on
+ * a worker pool (and checked against the store's email/username indexes),
+ * while the reader goes on with the next chunks. Results are collected in
+ * file order, duplicates inside the file are dropped (first row wins, like
+ * UserStore's own load), and everything that passed goes into the store
+ * with one registerAll, i.e. one snapshot write.
+ *
+ * Input: comma separated, fields optionally in double quotes (see Csv).
+ * A header row names the columns (email, username, password, fullName,
+ * weightKg, heightCm, goal, age; any order, case-insensitive); without one
+ * the columns are taken in that order. email and password are required,
+ * username defaults to the email.
+ *
+ * Every rejected row goes to the reject file as line number, reason and
+ * the original line, so it can be fixed and imported again.
+ *
+ * Passwords: already hashed values (pbkdf2$...) are kept. Plaintext ones are
+ * hashed on the worker pool before anything is stored, by default at
+ * IMPORT_ITERATIONS, and UserStore re-hashes them at full cost on each
+ * user's first login. Hashing is what an import of plaintext passwords
+ * costs: measured on one core, about 5.5 ms per row at 10,000 iterations
+ * (2,000 rows in 11 s), so a million rows take about an hour and a half
+ * per core. Hashed input, or --keep-plaintext, skips it: 200,000 rows then
+ * import in 2.5 s. --iterations picks another cost (hashing time grows
+ * with it). --keep-plaintext stores the passwords unhashed until first
+ * login, which leaves them readable in the users file: for trusted test
+ * data only.
+ *
+ * Run: java UserImporter <users.csv> [--store data/users.csv] [--rejects file]
+ *                        [--iterations n | --keep-plaintext]
+ */
+public class UserImporter {
+
+    private static final String[] DEFAULT_COLUMNS =
+            {"email", "username", "password", "fullname", "weightkg", "heightcm", "goal", "age"};
+    private static final int CHUNK_LINES = 8192;
+    /** Interim PBKDF2 cost for imported plaintext passwords; raised at each user's first login. */
+    public static final int IMPORT_ITERATIONS = 10_000;
+
+    /** Outcome of one import. */
+    public static class Result {
+        public long rows;
+        public long imported;
+        public long rejected;
+        public long millis;
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "rows=%,d imported=%,d rejected=%,d in %,d ms",
+                    rows, imported, rejected, millis);
+        }
+    }
+
+    private final UserRepository store;
+    private final PasswordHasher hasher; // null: keep plaintext passwords as given
+    private final int threads;
+
+    /** Importer that hashes plaintext passwords at IMPORT_ITERATIONS. */
+    public UserImporter(UserRepository store) {
+        this(store, new PasswordHasher(IMPORT_ITERATIONS), Runtime.getRuntime().availableProcessors());
+    }
+
+    public UserImporter(UserRepository store, PasswordHasher hasher, int threads) {
+        this.store = store;
+        this.hasher = hasher;
+        this.threads = Math.max(1, threads);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: java UserImporter <users.csv> [--store data/users.csv] [--rejects file]"
+                    + " [--iterations n | --keep-plaintext]");
+            System.exit(2);
+        }
+        Path input = Paths.get(args[0]);
+        String storeFile = "data/users.csv";
+        Path rejects = Paths.get(args[0] + ".rejects.csv");
+        int iterations = IMPORT_ITERATIONS;
+        boolean keepPlaintext = false;
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--store": storeFile = args[++i]; break;
+                case "--rejects": rejects = Paths.get(args[++i]); break;
+                case "--iterations": iterations = Integer.parseInt(args[++i]); break;
+                case "--keep-plaintext": keepPlaintext = true; break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(2);
+            }
+        }
+
+        long t0 = System.nanoTime();
+        UserStore store = new UserStore(storeFile);
+        System.out.printf("loaded %,d existing users in %,d ms%n", store.size(), (System.nanoTime() - t0) / 1_000_000);
+
+        UserImporter importer = new UserImporter(store, keepPlaintext ? null : new PasswordHasher(iterations),
+                Runtime.getRuntime().availableProcessors());
+        Result r = importer.importCsv(input, rejects);
+        System.out.println(r);
+        if (r.rejected > 0) {
+            System.out.println("rejected rows written to " + rejects);
+        }
+    }
+
+    /**
+     * Imports every valid row of `input`; rejected rows are written to `rejects`.
+     * Throws IOException, without counting anything as imported, if the store cannot be written.
+     */
+    public Result importCsv(Path input, Path rejects) throws IOException {
+        long start = System.nanoTime();
+        Result result = new Result();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<User> accepted = new ArrayList<>();
+        LineNumbers acceptedLines = new LineNumbers(); // parallel to accepted
+        // case-folded email/username -> line that claimed it first
+        Map<String, Long> seenEmail = new HashMap<>();
+        Map<String, Long> seenUsername = new HashMap<>();
+
+        try (BufferedReader in = Files.newBufferedReader(input, StandardCharsets.UTF_8);
+             BufferedWriter rej = Files.newBufferedWriter(rejects, StandardCharsets.UTF_8)) {
+            rej.write("line,reason,row");
+            rej.newLine();
+
+            String first = in.readLine();
+            if (first == null) {
+                result.millis = (System.nanoTime() - start) / 1_000_000;
+                return result;
+            }
+            int[] columns;
+            List<String> pendingFirst = new ArrayList<>();
+            if (looksLikeHeader(first)) {
+                columns = columnsFromHeader(Csv.split(first));
+            } else {
+                columns = columnsFromHeader(List.of(DEFAULT_COLUMNS));
+                pendingFirst.add(first);
+            }
+            if (columns[0] < 0 || columns[2] < 0) {
+                throw new IOException("Header needs at least email and password columns: " + first);
+            }
+
+            // chunks in flight, oldest first; bounded so memory stays flat for huge files
+            ArrayDeque<Future<Chunk>> inFlight = new ArrayDeque<>();
+            int maxInFlight = threads * 2;
+            List<String> lines = new ArrayList<>(pendingFirst);
+            long chunkStart = pendingFirst.isEmpty() ? 2 : 1;
+            String line;
+            while (true) {
+                line = in.readLine();
+                if (line != null) {
+                    lines.add(line);
+                    if (lines.size() < CHUNK_LINES) continue;
+                }
+                if (!lines.isEmpty()) {
+                    List<String> batch = lines;
+                    long firstLine = chunkStart;
+                    inFlight.add(pool.submit(() -> parse(batch, firstLine, columns)));
+                    chunkStart = firstLine + batch.size();
+                    lines = new ArrayList<>(CHUNK_LINES);
+                }
+                while (!inFlight.isEmpty() && (inFlight.size() >= maxInFlight || line == null)) {
+                    collect(take(inFlight.poll()), accepted, acceptedLines, seenEmail, seenUsername, rej, result);
+                }
+                if (line == null) break;
+            }
+
+            // one write for the whole batch
+            List<User> lost;
+            try {
+                lost = store.registerAll(accepted);
+            } catch (UncheckedIOException e) {
+                // nothing is on disk; do not report the rows as imported
+                throw new IOException("Import of " + accepted.size() + " users not saved: " + e.getMessage(),
+                        e.getCause());
+            }
+            if (!lost.isEmpty()) {
+                // registered by someone else while the file was being read
+                rejectLost(input, lost, accepted, acceptedLines, rej, result);
+            }
+            result.imported = accepted.size() - lost.size();
+        } finally {
+            pool.shutdown();
+        }
+        result.millis = (System.nanoTime() - start) / 1_000_000;
+        return result;
+    }
+
+    // ===== Parallel stage: parse, validate, check the store =====
+
+    /** Users and rejects of one chunk, in line order. */
+    private static class Chunk {
+        final List<User> users = new ArrayList<>();
+        final List<Long> userLines = new ArrayList<>();
+        final List<String> userRaw = new ArrayList<>(); // original lines, for rejects found later
+        final List<String> rejects = new ArrayList<>(); // "line,reason,row" records
+        int rows;
+    }
+
+    private Chunk parse(List<String> lines, long firstLine, int[] col) {
+        Chunk c = new Chunk();
+        for (int i = 0; i < lines.size(); i++) {
+            String raw = lines.get(i);
+            long lineNo = firstLine + i;
+            if (raw.isBlank()) continue;
+            c.rows++;
+            String error;
+            User u = null;
+            try {
+                List<String> f = Csv.split(raw);
+                String email = field(f, col[0]);
+                String username = field(f, col[1]);
+                String password = field(f, col[2]);
+                if (username.isEmpty()) username = email;
+                error = validate(email, password, f);
+                if (error == null) {
+                    u = new User(email, username, password, field(f, col[3]),
+                            number(field(f, col[4])), number(field(f, col[5])), field(f, col[6]));
+                    String age = field(f, col[7]);
+                    u.setAge(age.isEmpty() ? 0 : Integer.parseInt(age));
+                    if (u.getBodyWeightKg() < 0 || u.getHeightCm() < 0 || u.getAge() < 0) {
+                        error = "negative weight, height or age";
+                    } else if (store.findByEmail(email) != null) {
+                        error = "email already registered";
+                    } else if (store.findByUsername(username) != null) {
+                        error = "username already taken";
+                    }
+                }
+            } catch (NumberFormatException e) {
+                error = "bad number";
+            }
+            if (error != null) {
+                c.rejects.add(rejectRecord(lineNo, error, raw));
+                continue;
+            }
+            if (hasher != null && !PasswordHasher.isHashed(u.getPassword())) {
+                u.setPassword(hasher.hash(u.getPassword()));
+            }
+            c.users.add(u);
+            c.userLines.add(lineNo);
+            c.userRaw.add(raw);
+        }
+        return c;
+    }
+
+    private static String validate(String email, String password, List<String> fields) {
+        if (email.isEmpty()) return "missing email";
+        int at = email.indexOf('@');
+        if (at <= 0 || at != email.lastIndexOf('@') || at == email.length() - 1) return "invalid email";
+        for (int i = 0; i < email.length(); i++) {
+            if (Character.isWhitespace(email.charAt(i))) return "invalid email";
+        }
+        if (password.isEmpty()) return "missing password";
+        // UserStore rows are ';' separated and its reader does not honour the escape
+        for (String f : fields) {
+            if (f.indexOf(';') >= 0) return "field contains ';'";
+        }
+        return null;
+    }
+
+    // ===== Sequential stage: dedupe within the file, write rejects =====
+
+    private void collect(Chunk c, List<User> accepted, LineNumbers acceptedLines, Map<String, Long> seenEmail,
+                         Map<String, Long> seenUsername, BufferedWriter rej, Result result) throws IOException {
+        result.rows += c.rows;
+        for (String r : c.rejects) {
+            rej.write(r);
+            rej.newLine();
+            result.rejected++;
+        }
+        for (int i = 0; i < c.users.size(); i++) {
+            User u = c.users.get(i);
+            long lineNo = c.userLines.get(i);
+            String raw = c.userRaw.get(i);
+            Long prev = seenEmail.putIfAbsent(u.getEmail().toLowerCase(Locale.ROOT), lineNo);
+            if (prev != null) {
+                reject(rej, lineNo, "duplicate email (line " + prev + ")", raw, result);
+                continue;
+            }
+            prev = seenUsername.putIfAbsent(u.getUsername().toLowerCase(Locale.ROOT), lineNo);
+            if (prev != null) {
+                seenEmail.remove(u.getEmail().toLowerCase(Locale.ROOT));
+                reject(rej, lineNo, "duplicate username (line " + prev + ")", raw, result);
+                continue;
+            }
+            accepted.add(u);
+            acceptedLines.add(lineNo);
+        }
+    }
+
+    /**
+     * Rejects users that registerAll turned down. Accepted rows only keep their
+     * line number (not the text, which would double the memory of a big import),
+     * so the input is read once more to get those lines back; this is rare.
+     */
+    private static void rejectLost(Path input, List<User> lost, List<User> accepted, LineNumbers acceptedLines,
+                                   BufferedWriter rej, Result result) throws IOException {
+        Map<User, Long> lineOf = new IdentityHashMap<>();
+        for (User u : lost) lineOf.put(u, 0L);
+        for (int i = 0; i < accepted.size(); i++) {
+            if (lineOf.containsKey(accepted.get(i))) lineOf.put(accepted.get(i), acceptedLines.get(i));
+        }
+        TreeMap<Long, String> rows = new TreeMap<>();
+        for (long lineNo : lineOf.values()) rows.put(lineNo, null);
+        try (BufferedReader in = Files.newBufferedReader(input, StandardCharsets.UTF_8)) {
+            long lineNo = 0;
+            String line;
+            while (rows.lastKey() > lineNo && (line = in.readLine()) != null) {
+                if (rows.containsKey(++lineNo)) rows.put(lineNo, line);
+            }
+        }
+        for (Map.Entry<Long, String> e : rows.entrySet()) {
+            String raw = e.getValue() != null ? e.getValue() : "";
+            reject(rej, e.getKey(), "email or username already registered", raw, result);
+        }
+    }
+
+    private static void reject(BufferedWriter rej, long lineNo, String reason, String row,
+                               Result result) throws IOException {
+        rej.write(rejectRecord(lineNo, reason, row));
+        rej.newLine();
+        result.rejected++;
+    }
+
+    private static String rejectRecord(long lineNo, String reason, String row) {
+        return lineNo + "," + quote(reason) + "," + quote(row);
+    }
+
+    /** Growable list of line numbers without boxing, parallel to the accepted users. */
+    private static final class LineNumbers {
+        private long[] lines = new long[1024];
+        private int size;
+
+        void add(long line) {
+            if (size == lines.length) lines = Arrays.copyOf(lines, size * 2);
+            lines[size++] = line;
+        }
+
+        long get(int i) {
+            return lines[i];
+        }
+    }
+
+    // --- helpers
+    private static Chunk take(Future<Chunk> f) throws IOException {
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Import failed", e.getCause());
+        }
+    }
+
+    private static boolean looksLikeHeader(String line) {
+        return line.toLowerCase(Locale.ROOT).contains("email") && line.indexOf('@') < 0;
+    }
+
+    /** Index of each DEFAULT_COLUMNS entry in the header, -1 if absent. */
+    private static int[] columnsFromHeader(List<String> header) {
+        int[] col = new int[DEFAULT_COLUMNS.length];
+        for (int i = 0; i < col.length; i++) {
+            col[i] = -1;
+            for (int j = 0; j < header.size(); j++) {
+                if (header.get(j).trim().equalsIgnoreCase(DEFAULT_COLUMNS[i])) {
+                    col[i] = j;
+                    break;
+                }
+            }
+        }
+        return col;
+    }
+
+    private static String field(List<String> f, int i) {
+        return i >= 0 && i < f.size() ? f.get(i).trim() : "";
+    }
+
+    private static double number(String s) {
+        return s.isEmpty() ? 0 : Double.parseDouble(s);
+    }
+
+    private static String quote(String s) {
+        return "\"" + s.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -0,0 +1,51 @@
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The one place users live. Lookups are by case-insensitive email or
+ * username; register and update persist just the user they are given.
+ *
+ * UserStore is the implementation. The Swing app (through AppUserStore) and
+ * DashboardServer share a single instance, so both see the same users
+ * without re-reading each other's files.
+ */
+public interface UserRepository {
+
+    /** The user with this email (any case), or null. */
+    User findByEmail(String email);
+
+    /** The user with this username (any case), or null. */
+    User findByUsername(String username);
+
+    /** Adds a new user. Returns it, or null if the email or username is taken. */
+    User register(User user);
+
+    /**
+     * Adds many new users with a single write. Passwords are stored as given.
+     * Returns the ones skipped because their email or username was taken.
+     * Throws UncheckedIOException if the write fails.
+     */
+    List<User> registerAll(Collection<User> users);
+
+    /** Replaces the stored copy of an existing user. Returns false if the email is unknown. */
+    boolean update(User user);
+
+    /** The user if the email exists and the password matches, else null. Slow by design. */
+    User login(String email, String password);
+
+    /**
+     * login() on the password-hashing pool, for callers that must not block
+     * (the Swing EDT, HTTP dispatcher threads). Fails with
+     * RejectedExecutionException when too many logins are already queued.
+     */
+    CompletableFuture<User> loginAsync(String email, String password);
+
+    /** Copy of all users, in no particular order. */
+    List<User> getAllUsers();
+
+    int size();
+
+    /** Writes everything out in one go (e.g. on shutdown); normal changes persist as they happen. */
+    void save();
+}
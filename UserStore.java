@@ -4,100 +4,471 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
-public class UserStore {
+/**
+ * Users are kept in a snapshot CSV (the file passed in) plus an append-only
+ * change log next to it ("users.csv.log"). Each register/update appends one
+ * line to the log; once the log gets long it is folded back into the snapshot.
+ * Startup reads the snapshot and then replays the log on top of it.
+ *
+ * This is the UserRepository used by both the desktop app and DashboardServer.
+ *
+ * Passwords are stored as PasswordHasher hashes. register/update hash any
+ * plaintext they are given; plaintext rows from older files are still
+ * accepted by login and replaced with a hash (one log record) the first
+ * time they log in successfully.
+ *
+ * Safe to share between threads (e.g. DashboardServer handlers): lookups read
+ * the concurrent maps without locking, and register/update lock only the
+ * stripes for the email and username they touch.
+ *
+ * Log writes are group-committed: a record is queued under the stripes (so
+ * one user's records keep their order) and the caller then waits, with the
+ * stripes released, until it is in the file. The first waiter to find no
+ * write in progress writes everything queued so far in one go, through a
+ * writer that stays open between batches; the others wait for it. Under
+ * load that is one write for many registrations instead of opening the
+ * file once each. register/update still return only once their record is
+ * written.
+ */
+public class UserStore implements UserRepository {
+
+    // Fold the log into the snapshot after this many appended records
+    private static final int COMPACT_AFTER = 1000;
+    private static final String LOG_UPSERT = "U;";
+    private static final int STRIPES = 64; // power of two
 
     private final File file;
-    private final List<User> users = new ArrayList<>();
+    private final File logFile;
+    // Case-folded email/username -> user. Only modified while holding the matching stripes.
+    private final Map<String, User> byEmail = new ConcurrentHashMap<>();
+    private final Map<String, User> byUsername = new ConcurrentHashMap<>();
+    private final Object[] stripes = new Object[STRIPES];
+    private final PasswordHasher hasher;
+    // guards everything below; held only briefly, never while writing a batch
+    private final Object logLock = new Object();
+    private int logRecords;
+    private int compactAt = COMPACT_AFTER; // logRecords that triggers the next snapshot; pushed back on failure
+    private List<String> pending = new ArrayList<>(); // queued records, not yet written
+    private long queued;    // sequence number of the last queued record
+    private long logged;    // every record up to this one is written (or dropped by a snapshot)
+    private boolean writing; // a batch is being written; only its writer touches logWriter
+    private BufferedWriter logWriter; // open on logFile, null until the first batch and after a snapshot
 
     public UserStore(String filePath) {
+        this(filePath, PasswordHasher.shared());
+    }
+
+    public UserStore(String filePath, PasswordHasher hasher) {
+        this.hasher = hasher;
         this.file = new File(filePath);
+        this.logFile = new File(filePath + ".log");
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Object();
+        }
         load();
     }
 
+    @Override
     public List<User> getAllUsers() {
-        return new ArrayList<>(users);
+        return new ArrayList<>(byEmail.values());
     }
 
+    @Override
+    public int size() {
+        return byEmail.size();
+    }
+
+    @Override
     public User findByEmail(String email) {
-        for (User u : users) {
-            if (u.getEmail().equalsIgnoreCase(email)) {
-                return u;
-            }
-        }
-        return null;
+        if (email == null) return null;
+        return byEmail.get(key(email));
     }
 
+    @Override
     public User findByUsername(String username) {
-        for (User u : users) {
-            if (u.getUsername().equalsIgnoreCase(username)) {
-                return u;
-            }
-        }
-        return null;
+        if (username == null) return null;
+        return byUsername.get(key(username));
     }
 
     /** Register a new user, returns the created user, or null if email/username exists. */
+    @Override
     public User register(User user) {
-        if (findByEmail(user.getEmail()) != null) {
-            return null; // email already used
-        }
-        if (findByUsername(user.getUsername()) != null) {
-            return null; // username already used
+        hashPassword(user); // slow, so before taking the stripes
+        String emailKey = key(user.getEmail());
+        String usernameKey = key(user.getUsername());
+        Object first = stripeFor(emailKey, usernameKey, true);
+        Object second = stripeFor(emailKey, usernameKey, false);
+        long seq;
+        synchronized (first) {
+            synchronized (second) {
+                if (byEmail.containsKey(emailKey)) {
+                    return null; // email already used
+                }
+                if (byUsername.containsKey(usernameKey)) {
+                    return null; // username already used
+                }
+                index(user);
+                // queued under the stripe so records for one user reach the log in order
+                seq = enqueue(user);
+            }
         }
-        users.add(user);
-        save();
+        awaitLogged(seq);
         return user;
     }
 
-    /** Login using email + password. Returns user if correct, else null. */
+    /**
+     * Adds many new users, then writes one fresh snapshot instead of a log
+     * record per user. Passwords are kept exactly as given (hash them first,
+     * or let login upgrade plaintext ones). Returns the users that were not
+     * added because their email or username was already taken. Throws
+     * UncheckedIOException if the snapshot cannot be written; the users are
+     * then only in memory, until a later snapshot succeeds.
+     */
+    @Override
+    public List<User> registerAll(Collection<User> users) {
+        List<User> skipped = new ArrayList<>();
+        for (User user : users) {
+            String emailKey = key(user.getEmail());
+            String usernameKey = key(user.getUsername());
+            Object first = stripeFor(emailKey, usernameKey, true);
+            Object second = stripeFor(emailKey, usernameKey, false);
+            synchronized (first) {
+                synchronized (second) {
+                    if (byEmail.containsKey(emailKey) || byUsername.containsKey(usernameKey)) {
+                        skipped.add(user);
+                    } else {
+                        index(user);
+                    }
+                }
+            }
+        }
+        // Not under the stripes: enqueue() takes stripes then logLock, so the other order could deadlock.
+        // A register() that slips in meanwhile is in byEmail, and in the log after the snapshot.
+        if (skipped.size() < users.size()) {
+            try {
+                snapshot();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not write users file " + file, e);
+            }
+        }
+        return skipped;
+    }
+
+    /** Persist changes made to an existing user (weight, goal, ...). Returns false if unknown. */
+    @Override
+    public boolean update(User user) {
+        hashPassword(user);
+        String emailKey = key(user.getEmail());
+        String usernameKey = key(user.getUsername());
+        Object first = stripeFor(emailKey, usernameKey, true);
+        Object second = stripeFor(emailKey, usernameKey, false);
+        long seq;
+        synchronized (first) {
+            synchronized (second) {
+                User existing = byEmail.get(emailKey);
+                if (existing == null) return false;
+                // username is fixed once registered, so both keys map to the same stripes
+                replace(existing, user);
+                seq = enqueue(user);
+            }
+        }
+        awaitLogged(seq);
+        return true;
+    }
+
+    /**
+     * Login using email + password. Returns user if correct, else null.
+     * Runs the full hash on the calling thread; see loginAsync.
+     */
+    @Override
     public User login(String email, String password) {
         User existing = findByEmail(email);
         if (existing == null) return null;
-        if (!existing.getPassword().equals(password)) return null;
+        String stored = existing.getPassword();
+        if (!hasher.verify(password, stored)) return null;
+        if (hasher.needsRehash(stored)) {
+            upgradeHash(existing, stored, hasher.hash(password));
+        }
         return existing;
     }
 
+    @Override
+    public CompletableFuture<User> loginAsync(String email, String password) {
+        return hasher.submit(() -> login(email, password));
+    }
+
+    private void hashPassword(User user) {
+        if (!PasswordHasher.isHashed(user.getPassword())) {
+            user.setPassword(hasher.hash(user.getPassword() == null ? "" : user.getPassword()));
+        }
+    }
+
+    /** Swaps a plaintext or outdated hash for a new one, unless the user changed meanwhile. */
+    private void upgradeHash(User existing, String stored, String newHash) {
+        String emailKey = key(existing.getEmail());
+        String usernameKey = key(existing.getUsername());
+        Object first = stripeFor(emailKey, usernameKey, true);
+        Object second = stripeFor(emailKey, usernameKey, false);
+        long seq;
+        synchronized (first) {
+            synchronized (second) {
+                if (byEmail.get(emailKey) != existing || !stored.equals(existing.getPassword())) {
+                    return; // updated or upgraded by someone else
+                }
+                existing.setPassword(newHash);
+                seq = enqueue(existing);
+            }
+        }
+        awaitLogged(seq);
+    }
+
     private void load() {
-        users.clear();
-        if (!file.exists()) {
+        byEmail.clear();
+        byUsername.clear();
+        logRecords = 0;
+
+        if (file.exists()) {
+            try (BufferedReader br = new BufferedReader(new FileReader(file))) {
+                String line;
+                while ((line = br.readLine()) != null) {
+                    line = line.trim();
+                    if (line.isEmpty() || line.startsWith("#")) continue;
+                    try {
+                        User u = User.fromCsvRow(line);
+                        // first row wins, same as the old linear scan
+                        if (findByEmail(u.getEmail()) == null) {
+                            index(u);
+                        }
+                    } catch (Exception e) {
+                        System.err.println("Skipping bad user row: " + line);
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println("Could not read users file: " + e.getMessage());
+            }
+        }
+
+        replayLog();
+    }
+
+    private void replayLog() {
+        if (!logFile.exists()) {
             return;
         }
-        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
+        try (BufferedReader br = new BufferedReader(new FileReader(logFile))) {
             String line;
             while ((line = br.readLine()) != null) {
-                line = line.trim();
-                if (line.isEmpty() || line.startsWith("#")) continue;
+                if (!line.startsWith(LOG_UPSERT)) continue; // torn or unknown record
                 try {
-                    users.add(User.fromCsvRow(line));
+                    User u = User.fromCsvRow(line.substring(LOG_UPSERT.length()));
+                    User existing = findByEmail(u.getEmail());
+                    if (existing == null) {
+                        index(u);
+                    } else {
+                        replace(existing, u);
+                    }
+                    logRecords++;
                 } catch (Exception e) {
-                    System.err.println("Skipping bad user row: " + line);
+                    System.err.println("Skipping bad user log record: " + line);
                 }
             }
         } catch (IOException e) {
-            System.err.println("Could not read users file: " + e.getMessage());
+            System.err.println("Could not read users log: " + e.getMessage());
+        }
+    }
+
+    private void index(User u) {
+        byEmail.put(key(u.getEmail()), u);
+        byUsername.putIfAbsent(key(u.getUsername()), u);
+    }
+
+    private void replace(User old, User u) {
+        byEmail.put(key(u.getEmail()), u);
+        String oldName = key(old.getUsername());
+        String newName = key(u.getUsername());
+        if (oldName.equals(newName)) {
+            byUsername.replace(oldName, old, u);
+        } else {
+            byUsername.remove(oldName, old);
+            byUsername.putIfAbsent(newName, u);
         }
     }
 
+    private static String key(String s) {
+        return s.toLowerCase(Locale.ROOT);
+    }
+
+    /** Locks are always taken lower stripe first so two writers cannot deadlock. */
+    private Object stripeFor(String emailKey, String usernameKey, boolean lower) {
+        int a = stripeIndex(emailKey);
+        int b = stripeIndex(usernameKey);
+        return stripes[lower ? Math.min(a, b) : Math.max(a, b)];
+    }
+
+    private static int stripeIndex(String key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+
+    /** Queues u's log record; returns its sequence number for awaitLogged. Caller holds u's stripes. */
+    private long enqueue(User u) {
+        String record = LOG_UPSERT + u.toCsvRow();
+        synchronized (logLock) {
+            pending.add(record);
+            return ++queued;
+        }
+    }
+
+    /**
+     * Returns once record `seq` is in the log. Writes the queued batch itself
+     * if no other thread is writing one, otherwise waits for that thread.
+     */
+    private void awaitLogged(long seq) {
+        boolean interrupted = false;
+        while (true) {
+            List<String> batch;
+            long upTo;
+            synchronized (logLock) {
+                while (logged < seq && writing) {
+                    try {
+                        logLock.wait();
+                    } catch (InterruptedException e) {
+                        interrupted = true; // the record is already queued; finish, then restore the flag
+                    }
+                }
+                if (logged >= seq) break;
+                writing = true;
+                batch = pending;
+                pending = new ArrayList<>();
+                upTo = queued;
+            }
+            // outside logLock, so other threads keep queueing while this batch is written
+            writeBatch(batch);
+            synchronized (logLock) {
+                writing = false;
+                logged = Math.max(logged, upTo);
+                logRecords += batch.size();
+                if (logRecords >= compactAt) {
+                    try {
+                        writeSnapshot();
+                    } catch (IOException e) {
+                        // the log still has everything; try again after another COMPACT_AFTER
+                        // records rather than rewriting every user on each batch meanwhile
+                        compactAt = logRecords + COMPACT_AFTER;
+                        System.err.println("Could not write users file: " + e.getMessage());
+                    }
+                }
+                logLock.notifyAll();
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    // called with writing set, by the thread that set it
+    private void writeBatch(List<String> batch) {
+        try {
+            if (logWriter == null) {
+                ensureParentDir();
+                logWriter = new BufferedWriter(new FileWriter(logFile, true), 1 << 16);
+            }
+            for (String record : batch) {
+                logWriter.write(record);
+                logWriter.newLine();
+            }
+            logWriter.flush();
+        } catch (IOException e) {
+            System.err.println("Could not append to users log: " + e.getMessage());
+            closeLogWriter(); // reopen for the next batch
+        }
+    }
+
+    /** Write a fresh snapshot of all users and drop the change log. */
+    @Override
     public void save() {
         try {
-            File parent = file.getParentFile();
-            if (parent != null && !parent.exists()) {
-                parent.mkdirs();
+            snapshot();
+        } catch (IOException e) {
+            System.err.println("Could not write users file: " + e.getMessage());
+        }
+    }
+
+    private void snapshot() throws IOException {
+        synchronized (logLock) {
+            boolean interrupted = false;
+            try {
+                while (writing) {
+                    try {
+                        logLock.wait();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+                writeSnapshot();
+            } finally {
+                if (interrupted) Thread.currentThread().interrupt();
             }
-        } catch (Exception ignored) {}
+        }
+    }
 
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(file))) {
-            bw.write("# email;username;password;fullName;weightKg;heightCm;goal");
+    // caller holds logLock and no batch is being written
+    private void writeSnapshot() throws IOException {
+        ensureParentDir();
+
+        File tmp = new File(file.getPath() + ".tmp");
+        try (BufferedWriter bw = new BufferedWriter(new FileWriter(tmp), 1 << 16)) {
+            bw.write("# email;username;password;fullName;weightKg;heightCm;goal;age");
             bw.newLine();
-            for (User u : users) {
+            for (User u : byEmail.values()) {
                 bw.write(u.toCsvRow());
                 bw.newLine();
             }
+        }
+        Files.move(tmp.toPath(), file.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        // Replaying a stale log over the new snapshot is harmless, so a crash here loses nothing.
+        closeLogWriter();
+        try {
+            Files.deleteIfExists(logFile.toPath());
         } catch (IOException e) {
-            System.err.println("Could not write users file: " + e.getMessage());
+            System.err.println("Could not delete users log: " + e.getMessage());
         }
+        logRecords = 0;
+        compactAt = COMPACT_AFTER;
+        // Queued records are already in the maps the snapshot was written from
+        // (they are indexed before they are queued), so they need no log line.
+        pending.clear();
+        logged = queued;
+        logLock.notifyAll();
+    }
+
+    private void closeLogWriter() {
+        if (logWriter == null) return;
+        try {
+            logWriter.close();
+        } catch (IOException e) {
+            System.err.println("Could not close users log: " + e.getMessage());
+        }
+        logWriter = null;
+    }
+
+    private void ensureParentDir() {
+        try {
+            File parent = file.getParentFile();
+            if (parent != null && !parent.exists()) {
+                parent.mkdirs();
+            }
+        } catch (Exception ignored) {}
     }
 }
@@ -0,0 +1,57 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Small stand-alone benchmark for UserStore lookups.
+ * Builds stores of growing size and times findByEmail / findByUsername,
+ * so you can see that the cost per lookup stays flat as users are added.
+ *
+ * Run: java UserStoreBenchmark
+ */
+public class UserStoreBenchmark {
+
+    private static final int[] SIZES = {1_000, 10_000, 100_000, 300_000};
+    private static final int LOOKUPS = 200_000;
+
+    public static void main(String[] args) throws IOException {
+        for (int size : SIZES) {
+            File tmp = File.createTempFile("users-bench", ".csv");
+            tmp.deleteOnExit();
+            // Write the rows directly; calling register() here would rewrite the file each time.
+            fill(tmp, size);
+            UserStore store = new UserStore(tmp.getPath());
+
+            // warm-up
+            runLookups(store, size, LOOKUPS);
+
+            long start = System.nanoTime();
+            int hits = runLookups(store, size, LOOKUPS);
+            long elapsed = System.nanoTime() - start;
+
+            System.out.printf("users=%,9d  lookups=%,d  hits=%,d  avg=%.1f ns/lookup%n",
+                    size, LOOKUPS * 2, hits, elapsed / (LOOKUPS * 2.0));
+        }
+    }
+
+    private static void fill(File file, int size) throws IOException {
+        try (var out = new PrintWriter(new BufferedWriter(new FileWriter(file)))) {
+            out.println("# email;username;password;fullName;weightKg;heightCm;goal");
+            for (int i = 0; i < size; i++) {
+                out.println(new User("user" + i + "@example.com", "user" + i, "pw" + i).toCsvRow());
+            }
+        }
+    }
+
+    private static int runLookups(UserStore store, int size, int count) {
+        int hits = 0;
+        for (int i = 0; i < count; i++) {
+            int n = (int) ((i * 2654435761L) % size);
+            if (store.findByEmail("USER" + n + "@Example.com") != null) hits++;
+            if (store.findByUsername("User" + n) != null) hits++;
+        }
+        return hits;
+    }
+}
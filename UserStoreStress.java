@@ -0,0 +1,134 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Multithreaded stress run for UserStore.
+ * Several threads register overlapping users and log in at the same time.
+ * At the end every distinct account must exist exactly once, both in memory
+ * and after reloading from disk.
+ *
+ * Then a register-only run: the same number of new accounts registered by
+ * 1, 2, 4, ... threads against a fresh store each time, to show how log
+ * writes scale. Every account must survive a reload.
+ * Exits with status 1 if anything is off.
+ *
+ * Run: java UserStoreStress [threads] [usersPerThread]
+ */
+public class UserStoreStress {
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int perThread = args.length > 1 ? Integer.parseInt(args[1]) : 5_000;
+        // Threads share half of their ids with the next thread, so they fight over the same accounts.
+        int distinct = threads * perThread / 2 + perThread / 2;
+
+        File tmp = File.createTempFile("users-stress", ".csv");
+        tmp.delete();
+        tmp.deleteOnExit();
+        new File(tmp.getPath() + ".log").deleteOnExit();
+        // one PBKDF2 round: this run is about locking, not hashing cost
+        PasswordHasher hasher = new PasswordHasher(1);
+        UserStore store = new UserStore(tmp.getPath(), hasher);
+
+        AtomicInteger registered = new AtomicInteger();
+        AtomicInteger logins = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        Future<?>[] futures = new Future<?>[threads];
+
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            int first = t * perThread / 2;
+            futures[t] = pool.submit(() -> {
+                for (int i = first; i < first + perThread; i++) {
+                    if (store.register(user(i)) != null) registered.incrementAndGet();
+                    // log in as someone a few ids back, who may or may not exist yet
+                    int other = Math.max(0, i - 7);
+                    if (store.login(email(other), "pw" + other) != null) logins.incrementAndGet();
+                }
+                return null;
+            });
+        }
+        for (Future<?> f : futures) f.get();
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.MINUTES);
+        long elapsed = System.nanoTime() - start;
+
+        int ops = threads * perThread * 2;
+        System.out.printf("threads=%d  ops=%,d  %.0f ops/s  registered=%,d  logins=%,d%n",
+                threads, ops, ops / (elapsed / 1e9), registered.get(), logins.get());
+
+        boolean ok = check("in memory", store, distinct, registered.get());
+        ok &= check("reloaded", new UserStore(tmp.getPath(), hasher), distinct, registered.get());
+
+        System.out.println("register only:");
+        for (int n = 1; n <= threads; n *= 2) {
+            ok &= registerOnly(n, distinct, hasher);
+        }
+        if (!ok) System.exit(1);
+    }
+
+    /** `total` distinct registrations split over `n` threads; true if all of them are on disk afterwards. */
+    private static boolean registerOnly(int n, int total, PasswordHasher hasher) throws Exception {
+        File tmp = File.createTempFile("users-register", ".csv");
+        tmp.delete();
+        tmp.deleteOnExit();
+        new File(tmp.getPath() + ".log").deleteOnExit();
+        UserStore store = new UserStore(tmp.getPath(), hasher);
+
+        AtomicInteger registered = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(n);
+        Future<?>[] futures = new Future<?>[n];
+        long start = System.nanoTime();
+        for (int t = 0; t < n; t++) {
+            int from = (int) ((long) total * t / n);
+            int to = (int) ((long) total * (t + 1) / n);
+            futures[t] = pool.submit(() -> {
+                for (int i = from; i < to; i++) {
+                    if (store.register(user(i)) != null) registered.incrementAndGet();
+                }
+                return null;
+            });
+        }
+        for (Future<?> f : futures) f.get();
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.MINUTES);
+        long elapsed = System.nanoTime() - start;
+
+        int reloaded = new UserStore(tmp.getPath(), hasher).size();
+        boolean ok = registered.get() == total && reloaded == total;
+        System.out.printf("  threads=%-3d registrations=%,d  %.0f ops/s  reloaded=%,d  -> %s%n",
+                n, total, total / (elapsed / 1e9), reloaded, ok ? "OK" : "FAILED");
+        return ok;
+    }
+
+    private static boolean check(String label, UserStore store, int distinct, int registered) {
+        Set<String> emails = new HashSet<>();
+        int dupes = 0;
+        for (User u : store.getAllUsers()) {
+            if (!emails.add(u.getEmail().toLowerCase())) dupes++;
+        }
+        int missing = 0;
+        for (int i = 0; i < distinct; i++) {
+            if (store.findByEmail(email(i)) == null || store.findByUsername("user" + i) == null) missing++;
+        }
+        boolean ok = dupes == 0 && missing == 0 && registered == distinct && emails.size() == distinct;
+        System.out.printf("%-10s users=%,d  expected=%,d  duplicates=%d  missing=%d  -> %s%n",
+                label, emails.size(), distinct, dupes, missing, ok ? "OK" : "FAILED");
+        return ok;
+    }
+
+    private static User user(int i) {
+        return new User(email(i), "user" + i, "pw" + i);
+    }
+
+    private static String email(int i) {
+        return "user" + i + "@example.com";
+    }
+}
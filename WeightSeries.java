@@ -0,0 +1,169 @@
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * In-memory time series of body-weight readings for one user.
+ *
+ * Readings are kept sorted by day together with running (prefix) sums of
+ * x, y, x*y and x*x, where x is the day number and y the weight. Any date
+ * window is then two binary searches, and its mean, or the least-squares
+ * line through it, comes straight out of the prefix sums:
+ *   append (in date order)            O(1) amortized
+ *   movingAverage / weeklyDelta / trend  O(log n)
+ * A reading older than the newest one is inserted in place, which costs
+ * O(n) but only happens for back-dated entries.
+ *
+ * Not thread-safe; callers synchronize (AppProgressStore does).
+ */
+public class WeightSeries {
+
+    private int size;
+    private int[] day = new int[16];      // epoch day, ascending
+    private double[] weight = new double[16];
+    // prefix sums over readings [0, i); x is measured from base to keep the squares small
+    private double[] sx = new double[17], sy = new double[17], sxy = new double[17], sxx = new double[17];
+    private int base = Integer.MIN_VALUE;
+
+    /** Least-squares line through a window of readings. */
+    public static class Trend {
+        public final int points;
+        public final double slopePerDay;    // kg per day, 0 with fewer than two distinct days
+        public final double fittedEnd;      // fitted weight on the last reading's day
+
+        Trend(int points, double slopePerDay, double fittedEnd) {
+            this.points = points;
+            this.slopePerDay = slopePerDay;
+            this.fittedEnd = fittedEnd;
+        }
+
+        public double slopePerWeek() {
+            return slopePerDay * 7;
+        }
+    }
+
+    public void add(LocalDate date, double kg) {
+        int d = (int) date.toEpochDay();
+        if (base == Integer.MIN_VALUE) base = d;
+        ensure(size + 1);
+        if (size == 0 || d >= day[size - 1]) {
+            day[size] = d;
+            weight[size] = kg;
+            size++;
+            accumulate(size - 1);
+            return;
+        }
+        // back-dated: insert after readings of the same day, then redo the sums from there
+        int at = upperBound(d);
+        System.arraycopy(day, at, day, at + 1, size - at);
+        System.arraycopy(weight, at, weight, at + 1, size - at);
+        day[at] = d;
+        weight[at] = kg;
+        size++;
+        for (int i = at; i < size; i++) accumulate(i);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public LocalDate firstDate() {
+        return size == 0 ? null : LocalDate.ofEpochDay(day[0]);
+    }
+
+    public LocalDate lastDate() {
+        return size == 0 ? null : LocalDate.ofEpochDay(day[size - 1]);
+    }
+
+    /** Most recent reading, NaN if there is none. */
+    public double latest() {
+        return size == 0 ? Double.NaN : weight[size - 1];
+    }
+
+    /** Mean of the readings in the `days` days ending with `end` (inclusive), NaN if none. */
+    public double movingAverage(LocalDate end, int days) {
+        int to = upperBound((int) end.toEpochDay());
+        int from = lowerBound((int) end.toEpochDay() - days + 1);
+        int n = to - from;
+        return n <= 0 ? Double.NaN : (sy[to] - sy[from]) / n;
+    }
+
+    /**
+     * Mean of the week ending with `end` minus the mean of the week before.
+     * NaN if either week has no readings.
+     */
+    public double weeklyDelta(LocalDate end) {
+        return movingAverage(end, 7) - movingAverage(end.minusDays(7), 7);
+    }
+
+    /** Regression line over readings from `from` to `to` (inclusive). */
+    public Trend trend(LocalDate from, LocalDate to) {
+        int lo = lowerBound((int) from.toEpochDay());
+        int hi = upperBound((int) to.toEpochDay());
+        int n = hi - lo;
+        if (n <= 0) return new Trend(0, 0, Double.NaN);
+
+        double x = sx[hi] - sx[lo];
+        double y = sy[hi] - sy[lo];
+        double xy = sxy[hi] - sxy[lo];
+        double xx = sxx[hi] - sxx[lo];
+        double denom = n * xx - x * x;
+        double slope = denom > 1e-9 ? (n * xy - x * y) / denom : 0;
+        double meanX = x / n;
+        double meanY = y / n;
+        double lastX = day[hi - 1] - base;
+        return new Trend(n, slope, meanY + slope * (lastX - meanX));
+    }
+
+    /** Regression line over the last `days` days ending with `end`. */
+    public Trend trend(LocalDate end, int days) {
+        return trend(end.minusDays(days - 1), end);
+    }
+
+    // ===== Internals =====
+
+    private void accumulate(int i) {
+        double x = day[i] - base;
+        double y = weight[i];
+        sx[i + 1] = sx[i] + x;
+        sy[i + 1] = sy[i] + y;
+        sxy[i + 1] = sxy[i] + x * y;
+        sxx[i + 1] = sxx[i] + x * x;
+    }
+
+    private void ensure(int n) {
+        if (n <= day.length) return;
+        int cap = Math.max(n, day.length * 2);
+        day = Arrays.copyOf(day, cap);
+        weight = Arrays.copyOf(weight, cap);
+        sx = Arrays.copyOf(sx, cap + 1);
+        sy = Arrays.copyOf(sy, cap + 1);
+        sxy = Arrays.copyOf(sxy, cap + 1);
+        sxx = Arrays.copyOf(sxx, cap + 1);
+    }
+
+    /** First index whose day is >= d. */
+    private int lowerBound(int d) {
+        int lo = 0, hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (day[mid] < d) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /** First index whose day is > d. */
+    private int upperBound(int d) {
+        int lo = 0, hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (day[mid] <= d) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+}
@@ -1,31 +1,58 @@
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 public class WorkoutSession {
     private final Workout workout;
-    private final LocalDateTime start = LocalDateTime.now();
+    private final LocalDateTime start;
     private LocalDateTime end;
     private final Map<Exercise, List<SetEntry>> sets = new LinkedHashMap<>();
+    private double totalCalories; // running sum, kept up to date by addSet
+    private List<Listener> listeners; // created on first addListener
 
-    public WorkoutSession(Workout workout) { this.workout = workout; }
+    /** Told about every set added after it was registered. */
+    public interface Listener {
+        void setAdded(WorkoutSession session, Exercise exercise, SetEntry set, double calories);
+    }
+
+    public WorkoutSession(Workout workout) { this(workout, LocalDateTime.now(), null); }
+
+    /** Rebuild a past session, e.g. when loading history. end may be null. */
+    public WorkoutSession(Workout workout, LocalDateTime start, LocalDateTime end) {
+        this.workout = workout;
+        this.start = start;
+        this.end = end;
+    }
 
     public void addSet(Exercise e, SetEntry s) {
         sets.computeIfAbsent(e, k -> new ArrayList<>()).add(s);
+        double calories = e.estimateCalories(s);
+        totalCalories += calories;
+        if (listeners != null) {
+            for (Listener l : listeners) l.setAdded(this, e, s, calories);
+        }
+    }
+
+    /** Registers l unless an equal listener is already registered. Returns true if added. */
+    public boolean addListener(Listener l) {
+        if (listeners == null) listeners = new ArrayList<>(2);
+        if (listeners.contains(l)) return false;
+        listeners.add(l);
+        return true;
+    }
+
+    public void removeListener(Listener l) {
+        if (listeners != null) listeners.remove(l);
     }
 
     public void complete() { this.end = LocalDateTime.now(); }
 
+    /** O(1): the total is accumulated as sets are added. */
     public double totalCalories() {
-        double sum = 0;
-        for (Map.Entry<Exercise, List<SetEntry>> entry : sets.entrySet()) {
-            for (SetEntry set : entry.getValue()) {
-                sum += entry.getKey().estimateCalories(set);
-            }
-        }
-        return sum;
+        return totalCalories;
     }
 
     public String summary() {
@@ -47,5 +74,6 @@ public class WorkoutSession {
     public Workout getWorkout() { return workout; }
     public LocalDateTime getStart() { return start; }
     public LocalDateTime getEndOrNow() { return (end != null) ? end : LocalDateTime.now(); }
-    public Map<Exercise, List<SetEntry>> getSets() { return sets; }
+    /** Read-only view; add sets through addSet so the running total stays right. */
+    public Map<Exercise, List<SetEntry>> getSets() { return Collections.unmodifiableMap(sets); }
 }